@@ -1,5 +1,6 @@
 package com.github.sonarnext.api;
 
+import com.github.sonarnext.api.utils.JacksonJson;
 import com.github.sonarnext.api.utils.UrlEncoder;
 
 import javax.ws.rs.NotAuthorizedException;
@@ -8,12 +9,35 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 
 public abstract class AbstractApi implements Constants {
 
     private final SonarApi sonarApi;
 
+    /**
+     * A blocking API call that is applied to each item of a bulk operation.
+     *
+     * @param <T> the type of the items
+     * @param <R> the type of the call results
+     */
+    @FunctionalInterface
+    protected interface BulkCall<T, R> {
+        R apply(T item) throws SonarApiException;
+    }
+
     public AbstractApi(SonarApi sonarApi) {
         this.sonarApi = sonarApi;
     }
@@ -27,6 +51,83 @@ public abstract class AbstractApi implements Constants {
         return (sonarApi.getApiClient());
     }
 
+    protected JacksonJson getJacksonJson() {
+        return (sonarApi.getApiClient().getJacksonJson());
+    }
+
+    protected ExecutorService getBulkExecutor() {
+        return (sonarApi.getBulkExecutor());
+    }
+
+    /**
+     * Returns true if the current thread runs a task of the bounded bulk executor, nested bulk work must
+     * then run on the calling thread, see {@link SonarApi#isBulkThread()}.
+     *
+     * @return true if the current thread runs a task of the bounded bulk executor
+     */
+    protected boolean isBulkThread() {
+        return (sonarApi.isBulkThread());
+    }
+
+    protected ScheduledExecutorService getScheduler() {
+        return (sonarApi.getScheduler());
+    }
+
+    protected SonarApi getSonarApi() {
+        return (sonarApi);
+    }
+
+    /**
+     * Applies a blocking API call to every item concurrently on the bulk executor, which runs on
+     * virtual threads when enabled and supported, see {@link SonarApi#enableVirtualThreads()}. When called
+     * from a task of the bounded bulk executor the calls are made sequentially on the calling thread.
+     *
+     * @param <T> the type of the items
+     * @param <R> the type of the call results
+     * @param items the items to apply the call to
+     * @param call the blocking API call
+     * @return a List holding the result for each item, in the iteration order of items
+     * @throws SonarApiException if any call fails, the remaining calls are cancelled
+     */
+    protected <T, R> List<R> invokeAll(Collection<? extends T> items, BulkCall<? super T, ? extends R> call) throws SonarApiException {
+
+        // Called from a task of the bounded bulk executor, the calls are made one after the other on this thread
+        if (isBulkThread()) {
+            List<R> results = new ArrayList<>(items.size());
+            for (T item : items) {
+                results.add(call.apply(item));
+            }
+
+            return (results);
+        }
+
+        ExecutorService executor = getBulkExecutor();
+        List<Future<? extends R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(executor.submit(() -> call.apply(item)));
+        }
+
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+
+            for (Future<? extends R> future : futures) {
+                results.add(future.get());
+            }
+
+        } catch (ExecutionException e) {
+            throw handle(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw handle(e);
+        } finally {
+            if (results.size() < futures.size()) {
+                futures.forEach(future -> future.cancel(true));
+            }
+        }
+
+        return (results);
+    }
+
     /**
      * Encode a string to be used as in-path argument for a gitlab api request.
      *
@@ -98,6 +199,46 @@ public abstract class AbstractApi implements Constants {
         }
     }
 
+    /**
+     * Perform an asynchronous HTTP GET call with the specified query parameters and path objects, returning
+     * a CompletableFuture that completes with the entity read from the response. The calling thread is
+     * never blocked, the number of requests in flight is bounded by the SonarApiClient.
+     *
+     * @param <T> the type of the entity
+     * @param expectedStatus the HTTP status that should be returned from the server
+     * @param queryParams multivalue map of request parameters
+     * @param entityType the class of the entity to read from the response
+     * @param pathArgs variable list of arguments used to build the URI
+     * @return a CompletableFuture that completes with the entity, or exceptionally with a SonarApiException
+     */
+    protected <T> CompletableFuture<T> getAsync(Response.Status expectedStatus, MultivaluedMap<String, String> queryParams,
+        Class<T> entityType, Object... pathArgs) {
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            CompletableFuture<T> request = getApiClient().getAsync(queryParams,
+                response -> validate(response, expectedStatus).readEntity(entityType), pathArgs);
+            request.whenComplete((entity, thrown) -> {
+                if (thrown == null) {
+                    result.complete(entity);
+                } else {
+                    result.completeExceptionally(handleAsync(thrown));
+                }
+            });
+
+            // Cancelling the result cancels the request
+            result.whenComplete((entity, thrown) -> {
+                if (result.isCancelled()) {
+                    request.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            result.completeExceptionally(handle(e));
+        }
+
+        return (result);
+    }
+
     /**
      * Perform an HTTP HEAD call with the specified query parameters and path objects, returning
      * a ClientResponse instance with the data returned from the endpoint.
@@ -505,64 +646,95 @@ public abstract class AbstractApi implements Constants {
     }
 
     /**
-     * Creates a MultivaluedMap instance containing the "per_page" param.
+     * Streams the elements of a top-level array field of the response entity to a consumer, the entity
+     * is read incrementally so memory use does not depend on the size of the response.
      *
-     * @param perPage the number of projects per page
-     * @return a MultivaluedMap instance containing the "per_page" param
+     * @param <T> the type of the array elements
+     * @param response the response to read the entity of, the entity stream is closed on return
+     * @param fieldName the name of the top-level field holding the array
+     * @param elementType the class of the array elements
+     * @param consumer the consumer that receives each element as soon as it is parsed
+     * @return the number of elements passed to the consumer
+     * @throws SonarApiException if any exception occurs while reading the entity
+     */
+    protected <T> long readArray(Response response, String fieldName, Class<T> elementType,
+        Consumer<? super T> consumer) throws SonarApiException {
+
+        try (InputStream in = response.readEntity(InputStream.class)) {
+            return (getJacksonJson().readArray(in, fieldName, elementType, consumer));
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    /**
+     * Wraps the failure of an asynchronous call in a SonarApiException if needed.
+     *
+     * @param thrown the failure that should be wrapped
+     * @return the SonarApiException for an Exception, or the untouched Error
+     */
+    protected Throwable handleAsync(Throwable thrown) {
+
+        if (thrown instanceof CompletionException && thrown.getCause() != null) {
+            thrown = thrown.getCause();
+        }
+
+        return (thrown instanceof Exception ? handle((Exception) thrown) : thrown);
+    }
+
+    /**
+     * Creates a MultivaluedMap instance containing the "ps" param.
+     *
+     * @param perPage the number of items per page
+     * @return a MultivaluedMap instance containing the "ps" param
      */
     protected MultivaluedMap<String, String> getPerPageQueryParam(int perPage) {
-        return (new SonarApiForm().withParam(PER_PAGE_PARAM, perPage).asMap());
+        return (new SonarApiForm().withParam(PAGE_SIZE_PARAM, perPage).asMap());
     }
 
     /**
-     * Creates a MultivaluedMap instance containing "page" and "per_page" params.
+     * Creates a MultivaluedMap instance containing "p" and "ps" params.
      *
-     * @param page the page to get
-     * @param perPage the number of projects per page
-     * @return a MultivaluedMap instance containing "page" and "per_page" params
+     * @param page the 1-based page to get
+     * @param perPage the number of items per page
+     * @return a MultivaluedMap instance containing "p" and "ps" params
      */
     protected MultivaluedMap<String, String> getPageQueryParams(int page, int perPage) {
-        return (new SonarApiForm().withParam(PAGE_PARAM, page).withParam(PER_PAGE_PARAM, perPage).asMap());
+        return (new SonarApiForm().withParam(PAGE_INDEX_PARAM, page).withParam(PAGE_SIZE_PARAM, perPage).asMap());
     }
 
     /**
-     * Creates a MultivaluedMap instance containing "page" and "per_page" params.
+     * Creates a MultivaluedMap instance containing "p" and "ps" params.
      *
-     * @param page the page to get
-     * @param perPage the number of projects per page
-     * @param customAttributesEnabled enables customAttributes for this query
-     * @return a MultivaluedMap instance containing "page" and "per_page" params
+     * @param page the 1-based page to get
+     * @param perPage the number of items per page
+     * @param customAttributesEnabled ignored, SonarQube has no custom attributes
+     * @return a MultivaluedMap instance containing "p" and "ps" params
+     * @deprecated SonarQube has no custom attributes, use {@link #getPageQueryParams(int, int)}
      */
+    @Deprecated
     protected MultivaluedMap<String, String> getPageQueryParams(int page, int perPage, boolean customAttributesEnabled) {
-
-        SonarApiForm form = new SonarApiForm().withParam(PAGE_PARAM, page).withParam(PER_PAGE_PARAM, perPage);
-        if (customAttributesEnabled)
-            return (form.withParam("with_custom_attributes", true).asMap());
-
-        return (form.asMap());
+        return (getPageQueryParams(page, perPage));
     }
 
     /**
-     * Creates a MultivaluedMap instance containing the "per_page" param with the default value.
+     * Creates a MultivaluedMap instance containing the "ps" param with the default value.
      *
-     * @return a MultivaluedMap instance containing the "per_page" param with the default value
+     * @return a MultivaluedMap instance containing the "ps" param with the default value
      */
     protected MultivaluedMap<String, String> getDefaultPerPageParam() {
-        return (new SonarApiForm().withParam(PER_PAGE_PARAM, getDefaultPerPage()).asMap());
+        return (new SonarApiForm().withParam(PAGE_SIZE_PARAM, getDefaultPerPage()).asMap());
     }
 
     /**
-     * Creates a MultivaluedMap instance containing the "per_page" param with the default value.
+     * Creates a MultivaluedMap instance containing the "ps" param with the default value.
      *
-     * @param customAttributesEnabled enables customAttributes for this query
-     * @return a MultivaluedMap instance containing the "per_page" param with the default value
+     * @param customAttributesEnabled ignored, SonarQube has no custom attributes
+     * @return a MultivaluedMap instance containing the "ps" param with the default value
+     * @deprecated SonarQube has no custom attributes, use {@link #getDefaultPerPageParam()}
      */
+    @Deprecated
     protected MultivaluedMap<String, String> getDefaultPerPageParam(boolean customAttributesEnabled) {
-
-        SonarApiForm form = new SonarApiForm().withParam(PER_PAGE_PARAM, getDefaultPerPage());
-        if (customAttributesEnabled)
-            return (form.withParam("with_custom_attributes", true).asMap());
-
-        return (form.asMap());
+        return (getDefaultPerPageParam());
     }
 }
@@ -0,0 +1,30 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.CeTask;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variant of {@link CeApi}, every call returns a CompletableFuture instead of
+ * blocking the calling thread until the server responds.
+ */
+public class AsyncCeApi extends AbstractApi {
+
+    public AsyncCeApi(SonarApi sonarApi) {
+        super(sonarApi);
+    }
+
+    public CompletableFuture<CeTask> getCeTask(String id, String additionalFields) {
+
+        if (id == null) {
+            throw new RuntimeException("ID cannot be null");
+        }
+
+        SonarApiForm sonarApiForm = new SonarApiForm();
+        sonarApiForm.withParam("additionalFields", additionalFields);
+        sonarApiForm.withParam("id", id);
+        return (getAsync(Response.Status.OK, sonarApiForm.asMap(), CeTask.class, "api/ce/task"));
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.github.sonarnext.api;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of asynchronous requests in flight. Requests submitted while the limit is
+ * reached are queued instead of blocking the caller, and are dispatched as in-flight requests complete.
+ *
+ * <p>Only one thread dispatches at a time. A request that completes, and calls {@link #release()}, while it is
+ * being dispatched does not dispatch the next request from within the call, it leaves it to the dispatching
+ * loop, so requests failing synchronously do not nest one dispatch in another.</p>
+ */
+class AsyncRequestLimiter {
+
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int maxInFlight;
+
+    // The number of calls to drain() not yet handled by the thread dispatching the pending requests
+    private final AtomicInteger drainCalls = new AtomicInteger();
+
+    AsyncRequestLimiter(int maxInFlight) {
+        setMaxInFlight(maxInFlight);
+    }
+
+    /**
+     * Sets the maximum number of requests in flight.
+     *
+     * @param maxInFlight the maximum number of requests in flight, must be greater than 0
+     */
+    void setMaxInFlight(int maxInFlight) {
+
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0");
+        }
+
+        this.maxInFlight = maxInFlight;
+        drain();
+    }
+
+    int getMaxInFlight() {
+        return (maxInFlight);
+    }
+
+    int getInFlight() {
+        return (inFlight.get());
+    }
+
+    int getPending() {
+        return (pending.size());
+    }
+
+    /**
+     * Submits a request for dispatch. The request must call {@link #release()} exactly once when it completes.
+     *
+     * @param request the request to dispatch when a slot is available
+     */
+    void submit(Runnable request) {
+        pending.add(request);
+        drain();
+    }
+
+    /**
+     * Releases the slot held by a completed request and dispatches the next pending request, if any.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+
+        // Another thread, or an outer call on this thread, is dispatching and will pick up this call
+        if (drainCalls.getAndIncrement() != 0) {
+            return;
+        }
+
+        int calls = 1;
+        try {
+            do {
+                dispatch();
+                calls = drainCalls.addAndGet(-calls);
+            } while (calls != 0);
+        } catch (RuntimeException | Error e) {
+            // A request that throws must not leave the limiter without a dispatching thread
+            drainCalls.set(0);
+            throw e;
+        }
+    }
+
+    private void dispatch() {
+
+        while (!pending.isEmpty()) {
+
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            Runnable request = pending.poll();
+            if (request == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+
+            request.run();
+        }
+    }
+}
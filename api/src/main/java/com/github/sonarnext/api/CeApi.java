@@ -1,11 +1,45 @@
 package com.github.sonarnext.api;
 
+import com.github.sonarnext.api.models.CeActivityCursor;
+import com.github.sonarnext.api.models.CeActivityFilter;
+import com.github.sonarnext.api.models.CeActivityStatus;
+import com.github.sonarnext.api.models.CeInfo;
 import com.github.sonarnext.api.models.CeTask;
+import com.github.sonarnext.api.models.CeWorkerCount;
 
 import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CeApi extends AbstractApi {
 
+    /** The maximum page size of api/ce/activity. */
+    public static final int MAX_ACTIVITY_PAGE_SIZE = 1000;
+
+    /** The shortest interval between two polls of {@link #awaitCompletion(String, Duration)}, in milliseconds. */
+    public static final long MIN_POLL_INTERVAL = 500;
+
+    /** The longest interval between two polls of {@link #awaitCompletion(String, Duration)}, in milliseconds. */
+    public static final long MAX_POLL_INTERVAL = 30000;
+
+    // The execution time assumed for a component before any of its tasks has completed
+    private static final long DEFAULT_EXECUTION_TIME = 5000;
+
+    // The +/- fraction of random jitter added to each poll interval
+    private static final double POLL_JITTER = 0.2;
+
+    // The maximum number of times the interval is doubled once the predicted completion has passed
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private final CeTaskTimeEstimator executionTimes = new CeTaskTimeEstimator(DEFAULT_EXECUTION_TIME);
+    private final CeTaskTimeEstimator queueWaits = new CeTaskTimeEstimator(0);
+
     public CeApi(SonarApi sonarApi) {
         super(sonarApi);
     }
@@ -23,4 +57,304 @@ public class CeApi extends AbstractApi {
         return (response.readEntity(CeTask.class));
     }
 
+    /**
+     * Get the number of pending, in progress and failing CE tasks.
+     *
+     * @param component the key of the component to get the counts for, null to get them for all components
+     * @return the CeActivityStatus holding the counts
+     * @throws SonarApiException if any exception occurs
+     */
+    public CeActivityStatus getActivityStatus(String component) throws SonarApiException {
+        SonarApiForm sonarApiForm = new SonarApiForm();
+        sonarApiForm.withParam("component", component);
+        Response response = get(Response.Status.OK, sonarApiForm.asMap(), "api/ce/activity_status");
+        return (response.readEntity(CeActivityStatus.class));
+    }
+
+    /**
+     * Get the number of CE workers, requires the 'Administer System' permission.
+     *
+     * @return the CeWorkerCount holding the number of workers
+     * @throws SonarApiException if any exception occurs
+     */
+    public CeWorkerCount getWorkerCount() throws SonarApiException {
+        Response response = get(Response.Status.OK, null, "api/ce/worker_count");
+        return (response.readEntity(CeWorkerCount.class));
+    }
+
+    /**
+     * Get the pause status of the CE workers, requires the system passcode or the 'Administer System' permission.
+     *
+     * @return the CeInfo holding the pause status of the workers
+     * @throws SonarApiException if any exception occurs
+     */
+    public CeInfo getInfo() throws SonarApiException {
+        Response response = get(Response.Status.OK, null, "api/ce/info");
+        return (response.readEntity(CeInfo.class));
+    }
+
+    /**
+     * Get several CE tasks concurrently, see {@link SonarApi#enableVirtualThreads()}.
+     *
+     * @param ids the IDs of the tasks to get
+     * @param additionalFields comma-separated list of optional fields to return, can be null
+     * @return a List holding the CeTask for each ID, in the iteration order of ids
+     * @throws SonarApiException if any of the calls fails
+     */
+    public List<CeTask> getCeTasks(Collection<String> ids, String additionalFields) throws SonarApiException {
+        return (invokeAll(ids, id -> getCeTask(id, additionalFields)));
+    }
+
+    /**
+     * Streams a page of CE activity to a consumer. The response is parsed incrementally and each task is
+     * passed to the consumer as soon as it is read, so memory use does not depend on the page size or on
+     * the size of the tasks.
+     *
+     * @param filter the filter for the tasks, can be null
+     * @param page the 1-based index of the page to get
+     * @param perPage the number of tasks per page, at most {@link #MAX_ACTIVITY_PAGE_SIZE}
+     * @param consumer the consumer that receives each task of the page
+     * @return the number of tasks passed to the consumer
+     * @throws SonarApiException if any exception occurs
+     */
+    public long getActivity(CeActivityFilter filter, int page, int perPage, Consumer<? super CeTask.Task> consumer) throws SonarApiException {
+
+        SonarApiForm sonarApiForm = (filter != null ? filter.getQueryParams(page, perPage) :
+            new SonarApiForm().withParam(PAGE_INDEX_PARAM, page).withParam(PAGE_SIZE_PARAM, perPage));
+        Response response = get(Response.Status.OK, sonarApiForm.asMap(), "api/ce/activity");
+        return (readArray(response, "tasks", CeTask.Task.class, consumer));
+    }
+
+    /**
+     * Streams the CE tasks that finished since the cursor was last advanced. Pages are only fetched when the
+     * stream reaches them, and when the stream has been consumed to the end the cursor is advanced past the
+     * returned tasks, so that the next call only returns new tasks. Pass the same cursor, or a persisted copy
+     * of it, on the next call.
+     *
+     * <p>Only finished tasks (SUCCESS, FAILED and CANCELED) are returned. A task that is still pending or in
+     * progress holds the cursor back and is returned by a later call once it has finished. The statuses of the
+     * filter, if any, limit the finished statuses that are returned. All tasks submitted since the cursor must
+     * fit in the {@link #MAX_SEARCH_RESULTS} results SonarQube can page through, otherwise a RuntimeException
+     * wrapping a SonarApiException is thrown and the cursor is not advanced.</p>
+     *
+     * @param filter the filter for the tasks, can be null
+     * @param cursor the cursor to start from and to advance, a new cursor starts at the oldest task
+     * @return a Stream of the finished tasks submitted since the cursor
+     */
+    public Stream<CeTask.Task> streamActivity(CeActivityFilter filter, CeActivityCursor cursor) {
+
+        ActivityIterator iterator = new ActivityIterator(filter, cursor);
+        return (StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false));
+    }
+
+    /**
+     * Pages lazily through the CE activity submitted since a cursor and advances the cursor at the end.
+     */
+    private class ActivityIterator implements Iterator<CeTask.Task> {
+
+        private final List<String> statuses;
+        private final CeActivityCursor cursor;
+
+        private final Pager<CeTask.Task> pager;
+        private Iterator<CeTask.Task> pageIterator = Collections.emptyIterator();
+        private CeTask.Task next;
+
+        // The finished tasks read so far with their submission time, and the oldest unfinished task
+        private final Map<String, Long> finished = new HashMap<>();
+        private long maxFinishedAt = Long.MIN_VALUE;
+        private long minUnfinishedAt = Long.MAX_VALUE;
+
+        ActivityIterator(CeActivityFilter filter, CeActivityCursor cursor) {
+
+            filter = (filter != null ? filter.copy() : new CeActivityFilter());
+            this.statuses = filter.getStatuses();
+            this.cursor = cursor;
+
+            Date minSubmittedAt = filter.getMinSubmittedAt();
+            if (minSubmittedAt == null || minSubmittedAt.getTime() < cursor.getMinSubmittedAt()) {
+                filter.withMinSubmittedAt(cursor.getMinSubmittedAt() > 0 ? new Date(cursor.getMinSubmittedAt()) : null);
+            }
+
+            filter.withStatuses(null);
+            pager = new Pager<>(CeApi.this, CeTask.Task.class, "tasks", MAX_ACTIVITY_PAGE_SIZE, MAX_ACTIVITY_PAGE_SIZE,
+                filter.getQueryParams().asMap(), "api/ce/activity");
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            while (next == null) {
+
+                if (!pageIterator.hasNext()) {
+                    if (pager.hasNext()) {
+                        pageIterator = pager.next().iterator();
+                        continue;
+                    }
+
+                    if (pager.isTruncated()) {
+                        throw new RuntimeException(new SonarApiException("More than " + MAX_SEARCH_RESULTS +
+                            " CE tasks were submitted since the cursor, the cursor cannot be advanced"));
+                    }
+
+                    advanceCursor();
+                    return (false);
+                }
+
+                CeTask.Task task = pageIterator.next();
+                if (isFinished(task)) {
+                    finished.put(task.getId(), task.getSubmittedAtMillis());
+                    maxFinishedAt = Math.max(maxFinishedAt, task.getSubmittedAtMillis());
+                    if (!cursor.getSeenIds().contains(task.getId()) && (statuses == null || statuses.contains(task.getStatus()))) {
+                        next = task;
+                    }
+                } else if (task.getSubmittedAtMillis() != CeTask.NO_TIME) {
+                    minUnfinishedAt = Math.min(minUnfinishedAt, task.getSubmittedAtMillis());
+                }
+            }
+
+            return (true);
+        }
+
+        @Override
+        public CeTask.Task next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            CeTask.Task task = next;
+            next = null;
+            return (task);
+        }
+
+        // Moves the cursor to the newest finished task, but not past the oldest unfinished task,
+        // and remembers the tasks at or after the new position that must not be returned again
+        private void advanceCursor() {
+
+            if (finished.isEmpty()) {
+                return;
+            }
+
+            long minSubmittedAt = Math.max(cursor.getMinSubmittedAt(), Math.min(maxFinishedAt, minUnfinishedAt));
+            Set<String> seenIds = new LinkedHashSet<>();
+            for (Map.Entry<String, Long> entry : finished.entrySet()) {
+                if (entry.getValue() >= minSubmittedAt) {
+                    seenIds.add(entry.getKey());
+                }
+            }
+
+            cursor.setMinSubmittedAt(minSubmittedAt);
+            cursor.setSeenIds(seenIds);
+        }
+    }
+
+    /**
+     * Waits for a CE task to reach the SUCCESS, FAILED or CANCELED status without blocking the calling thread.
+     *
+     * <p>Instead of polling at a fixed rate, the next poll is scheduled for the predicted completion of the task.
+     * The prediction uses the moving average of the executionTimeMs of the completed tasks of the same component,
+     * and for pending tasks the moving average of the time tasks waited in the queue. Once the predicted completion
+     * has passed the interval backs off exponentially, and random jitter keeps concurrent waiters from polling in
+     * lockstep. Intervals are kept between {@link #MIN_POLL_INTERVAL} and {@link #MAX_POLL_INTERVAL}.</p>
+     *
+     * @param taskId the ID of the task to wait for
+     * @param timeout the maximum time to wait for the task to complete
+     * @return a CompletableFuture that completes with the finished task, or exceptionally with a
+     * SonarApiException if the call fails or the timeout elapses. Cancelling it stops the polling.
+     */
+    public CompletableFuture<CeTask.Task> awaitCompletion(String taskId, Duration timeout) {
+
+        if (taskId == null) {
+            throw new RuntimeException("ID cannot be null");
+        }
+
+        CompletableFuture<CeTask.Task> result = new CompletableFuture<>();
+        pollCompletion(taskId, System.nanoTime() + timeout.toNanos(), 0, result);
+        return (result);
+    }
+
+    private void pollCompletion(String taskId, long deadline, int overduePolls, CompletableFuture<CeTask.Task> result) {
+
+        if (result.isDone()) {
+            return;
+        }
+
+        getSonarApi().getAsyncCeApi().getCeTask(taskId, null).whenComplete((ceTask, thrown) -> {
+
+            if (thrown != null) {
+                result.completeExceptionally(handleAsync(thrown));
+                return;
+            }
+
+            CeTask.Task task = ceTask.getTask();
+            if (task == null) {
+                result.completeExceptionally(new SonarApiException("No task returned for CE task " + taskId));
+                return;
+            }
+
+            if (isFinished(task)) {
+                recordTimes(task);
+                result.complete(task);
+                return;
+            }
+
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                result.completeExceptionally(new SonarApiException("Timed out waiting for CE task " + taskId));
+                return;
+            }
+
+            long untilCompletion = predictCompletion(task) - System.currentTimeMillis();
+            long delay;
+            int nextOverduePolls;
+            if (untilCompletion >= MIN_POLL_INTERVAL) {
+                delay = untilCompletion;
+                nextOverduePolls = 0;
+            } else {
+                delay = MIN_POLL_INTERVAL << Math.min(overduePolls, MAX_BACKOFF_SHIFT);
+                nextOverduePolls = overduePolls + 1;
+            }
+
+            // The jitter is applied before the interval is clamped, so the jittered interval stays within the bounds
+            delay = Math.round(delay * (1.0 + ThreadLocalRandom.current().nextDouble(-POLL_JITTER, POLL_JITTER)));
+            delay = Math.max(MIN_POLL_INTERVAL, Math.min(delay, MAX_POLL_INTERVAL));
+            try {
+                getScheduler().schedule(() -> pollCompletion(taskId, deadline, nextOverduePolls, result),
+                    Math.min(delay, remaining), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // For example a RejectedExecutionException once the SonarApi has been closed
+                result.completeExceptionally(handle(e));
+            }
+        });
+    }
+
+    private static boolean isFinished(CeTask.Task task) {
+        String status = task.getStatus();
+        return ("SUCCESS".equals(status) || "FAILED".equals(status) || "CANCELED".equals(status));
+    }
+
+    // Get the predicted completion of an unfinished task in epoch milliseconds
+    private long predictCompletion(CeTask.Task task) {
+
+        long executionTime = executionTimes.estimate(task.getComponentKey());
+        if (task.getStartedAtMillis() != CeTask.NO_TIME) {
+            return (task.getStartedAtMillis() + executionTime);
+        } else if (task.getSubmittedAtMillis() != CeTask.NO_TIME) {
+            return (task.getSubmittedAtMillis() + queueWaits.estimate(null) + executionTime);
+        } else {
+            return (System.currentTimeMillis() + executionTime);
+        }
+    }
+
+    private void recordTimes(CeTask.Task task) {
+
+        if (task.getExecutionTimeMs() != null) {
+            executionTimes.record(task.getComponentKey(), task.getExecutionTimeMs());
+        }
+
+        if (task.getQueueWaitMs() != CeTask.NO_TIME) {
+            queueWaits.record(null, task.getQueueWaitMs());
+        }
+    }
+
 }
@@ -0,0 +1,329 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.CeActivityStatus;
+import com.github.sonarnext.api.models.CeWorkerCount;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Samples the CE queue and worker status into a fixed size ring buffer, for example to autoscale the CE workers.
+ * Each sample holds the values of every {@link Metric}, the oldest sample is overwritten when the buffer is full.
+ *
+ * <p>All storage, including the scratch space used to select percentiles, is allocated up front, so neither
+ * recording a sample nor reading the buffer allocates. Samples are taken on the bulk executor, a sample that
+ * is due while the previous one is still running is skipped.</p>
+ */
+public class CeQueueSampler implements AutoCloseable {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    /** The value recorded for a metric that could not be read. */
+    public static final long NO_VALUE = -1;
+
+    /** The values recorded by each sample. */
+    public enum Metric {
+
+        /** The number of pending tasks. */
+        PENDING,
+
+        /** The number of tasks in progress. */
+        IN_PROGRESS,
+
+        /** The number of tasks that are failing. */
+        FAILING,
+
+        /** The time in milliseconds the oldest pending task has been waiting. */
+        PENDING_TIME,
+
+        /** The number of CE workers, NO_VALUE without the 'Administer System' permission. */
+        WORKERS
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    private final SonarApi sonarApi;
+    private final String component;
+    private final int capacity;
+
+    // One ring per metric plus the sample times, and a scratch array for the percentiles
+    private final long[][] values;
+    private final long[] times;
+    private final long[] scratch;
+    private int next;
+    private int size;
+    private long sampleCount;
+    private long failureCount;
+
+    private final AtomicBoolean sampling = new AtomicBoolean();
+    private volatile boolean workerCountReadable = true;
+    private ScheduledFuture<?> sampler;
+
+    /**
+     * Creates a sampler for the queue of all components.
+     *
+     * @param sonarApi the SonarApi instance used to read the status
+     * @param capacity the number of samples kept in the ring buffer
+     */
+    public CeQueueSampler(SonarApi sonarApi, int capacity) {
+        this(sonarApi, null, capacity);
+    }
+
+    /**
+     * Creates a sampler.
+     *
+     * @param sonarApi the SonarApi instance used to read the status
+     * @param component the key of the component to sample the queue of, null to sample the queue of all components
+     * @param capacity the number of samples kept in the ring buffer
+     */
+    public CeQueueSampler(SonarApi sonarApi, String component, int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+
+        this.sonarApi = sonarApi;
+        this.component = component;
+        this.capacity = capacity;
+        values = new long[METRICS.length][capacity];
+        times = new long[capacity];
+        scratch = new long[capacity];
+    }
+
+    /**
+     * Starts sampling at a fixed rate on the SonarApi scheduler.
+     *
+     * @param interval the interval between two samples
+     */
+    public void start(Duration interval) {
+
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be greater than 0");
+        }
+
+        ScheduledExecutorService scheduler = sonarApi.getScheduler();
+        synchronized (this) {
+            stop();
+            long period = interval.toMillis();
+            sampler = scheduler.scheduleAtFixedRate(this::sampleAsync, 0, Math.max(period, 1), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops sampling, the recorded samples are kept.
+     */
+    public synchronized void stop() {
+        if (sampler != null) {
+            sampler.cancel(false);
+            sampler = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    private void sampleAsync() {
+
+        if (!sampling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            sonarApi.getBulkExecutor().execute(() -> {
+                try {
+                    sample();
+                } catch (SonarApiException e) {
+                    LOGGER.log(Level.FINE, "Failed to sample the CE queue", e);
+                } finally {
+                    sampling.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            sampling.set(false);
+            LOGGER.log(Level.WARNING, "Failed to schedule a CE queue sample", e);
+        }
+    }
+
+    /**
+     * Takes a sample now on the calling thread and records it.
+     *
+     * @throws SonarApiException if the queue status could not be read, nothing is recorded
+     */
+    public void sample() throws SonarApiException {
+
+        CeActivityStatus status;
+        try {
+            status = sonarApi.getCeApi().getActivityStatus(component);
+        } catch (SonarApiException e) {
+            synchronized (this) {
+                failureCount++;
+            }
+            throw e;
+        }
+
+        long workers = NO_VALUE;
+        if (workerCountReadable) {
+            try {
+                CeWorkerCount workerCount = sonarApi.getCeApi().getWorkerCount();
+                workers = valueOf(workerCount.getValue());
+            } catch (SonarApiException e) {
+                // Only administrators can read the worker count, stop asking if we are not allowed to
+                if (e.getHttpStatus() == 401 || e.getHttpStatus() == 403) {
+                    workerCountReadable = false;
+                }
+            }
+        }
+
+        record(System.currentTimeMillis(), valueOf(status.getPending()), valueOf(status.getInProgress()),
+            valueOf(status.getFailing()), valueOf(status.getPendingTime()), workers);
+    }
+
+    private synchronized void record(long time, long pending, long inProgress, long failing, long pendingTime, long workers) {
+
+        values[Metric.PENDING.ordinal()][next] = pending;
+        values[Metric.IN_PROGRESS.ordinal()][next] = inProgress;
+        values[Metric.FAILING.ordinal()][next] = failing;
+        values[Metric.PENDING_TIME.ordinal()][next] = pendingTime;
+        values[Metric.WORKERS.ordinal()][next] = workers;
+        times[next] = time;
+
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+        sampleCount++;
+    }
+
+    private static long valueOf(Number value) {
+        return (value != null ? value.longValue() : NO_VALUE);
+    }
+
+    /**
+     * Get the number of samples in the ring buffer.
+     *
+     * @return the number of samples in the ring buffer
+     */
+    public synchronized int size() {
+        return (size);
+    }
+
+    /**
+     * Get the number of samples recorded since the sampler was created, including the overwritten ones.
+     *
+     * @return the number of samples recorded
+     */
+    public synchronized long getSampleCount() {
+        return (sampleCount);
+    }
+
+    /**
+     * Get the number of samples that failed because the queue status could not be read.
+     *
+     * @return the number of failed samples
+     */
+    public synchronized long getFailureCount() {
+        return (failureCount);
+    }
+
+    /**
+     * Get the time of the latest sample.
+     *
+     * @return the time of the latest sample in epoch milliseconds, or NO_VALUE if there is no sample
+     */
+    public synchronized long getLatestTime() {
+        return (size > 0 ? times[(next + capacity - 1) % capacity] : NO_VALUE);
+    }
+
+    /**
+     * Get the value of a metric in the latest sample.
+     *
+     * @param metric the metric to get the value of
+     * @return the value of the metric in the latest sample, or NO_VALUE if there is no sample
+     */
+    public synchronized long getLatest(Metric metric) {
+        return (size > 0 ? values[metric.ordinal()][(next + capacity - 1) % capacity] : NO_VALUE);
+    }
+
+    /**
+     * Get a percentile of a metric over the samples in the ring buffer, using the nearest-rank method.
+     * Samples where the metric could not be read are ignored.
+     *
+     * @param metric the metric to get the percentile of
+     * @param percentile the percentile to get, from 0 to 100, for example 50 for the median
+     * @return the percentile of the metric, or NO_VALUE if there is no sample with a value
+     */
+    public synchronized long getPercentile(Metric metric, double percentile) {
+
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        long[] ring = values[metric.ordinal()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (ring[i] != NO_VALUE) {
+                scratch[count++] = ring[i];
+            }
+        }
+
+        if (count == 0) {
+            return (NO_VALUE);
+        }
+
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return (select(scratch, count, Math.max(rank - 1, 0)));
+    }
+
+    // Quickselect of the k-th smallest of the first count values, in place as Arrays.sort() may allocate
+    private static long select(long[] a, int count, int k) {
+
+        int left = 0;
+        int right = count - 1;
+        while (left < right) {
+
+            long pivot = a[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (a[i] < pivot) {
+                    i++;
+                }
+
+                while (a[j] > pivot) {
+                    j--;
+                }
+
+                if (i <= j) {
+                    long tmp = a[i];
+                    a[i++] = a[j];
+                    a[j--] = tmp;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+
+        return (a[k]);
+    }
+
+    /**
+     * Drops all samples and resets the counters.
+     */
+    public synchronized void clear() {
+        next = 0;
+        size = 0;
+        sampleCount = 0;
+        failureCount = 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.sonarnext.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps an exponentially weighted moving average of a CE task duration per key, for example the
+ * execution time per component. Keys without history fall back to the average over all keys.
+ */
+class CeTaskTimeEstimator {
+
+    // The weight of a new sample, higher values follow changes faster
+    private static final double ALPHA = 0.3;
+
+    // The key of the average over all keys
+    private static final String ALL_KEYS = "";
+
+    private final ConcurrentMap<String, Double> averages = new ConcurrentHashMap<>();
+    private final long defaultEstimate;
+
+    CeTaskTimeEstimator(long defaultEstimate) {
+        this.defaultEstimate = defaultEstimate;
+    }
+
+    /**
+     * Get the estimated duration for the specified key.
+     *
+     * @param key the key to get the estimate for, can be null
+     * @return the estimated duration in milliseconds
+     */
+    long estimate(String key) {
+
+        Double average = (key != null ? averages.get(key) : null);
+        if (average == null) {
+            average = averages.get(ALL_KEYS);
+        }
+
+        return (average != null ? average.longValue() : defaultEstimate);
+    }
+
+    /**
+     * Adds a measured duration to the average of the specified key and to the average over all keys.
+     *
+     * @param key the key to add the sample to, can be null
+     * @param duration the measured duration in milliseconds
+     */
+    void record(String key, long duration) {
+
+        if (duration < 0) {
+            return;
+        }
+
+        if (key != null && !ALL_KEYS.equals(key)) {
+            averages.merge(key, (double) duration, CeTaskTimeEstimator::update);
+        }
+
+        averages.merge(ALL_KEYS, (double) duration, CeTaskTimeEstimator::update);
+    }
+
+    private static Double update(Double average, Double sample) {
+        return (average + ALPHA * (sample - average));
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.CeActivityFilter;
+import com.github.sonarnext.api.models.CeTask;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Waits for any number of CE tasks with a single poller. On every poll the watched tasks are grouped by
+ * component and each group is resolved with one paged api/ce/activity query for the finished tasks submitted
+ * since the group was registered, so the number of requests follows the number of components that have
+ * watched tasks and not the number of watched tasks. When more than {@link Constants#MAX_SEARCH_RESULTS} tasks
+ * finished in a group since its oldest watch, the watched tasks not found in the activity are looked up one by one.
+ *
+ * <p>Tasks are expected to be watched soon after they have been submitted, a task submitted more than
+ * {@link #SUBMISSION_SLACK} before it is watched is not found by the activity queries. Use
+ * {@link CeApi#awaitCompletion(String, Duration)} for such tasks.</p>
+ */
+public class CeTaskWatcher implements AutoCloseable {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    /** The default interval between two polls. */
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(5);
+
+    /** How long before it was watched a task may have been submitted and still be found. */
+    public static final Duration SUBMISSION_SLACK = Duration.ofMinutes(10);
+
+    private static final List<String> FINISHED_STATUSES = Arrays.asList("SUCCESS", "FAILED", "CANCELED");
+
+    // The number of activity pages within the cap of the web service
+    private static final int MAX_ACTIVITY_PAGES = Constants.MAX_SEARCH_RESULTS / CeApi.MAX_ACTIVITY_PAGE_SIZE;
+
+    private final SonarApi sonarApi;
+    private final long pollInterval;
+    private final ConcurrentMap<String, Watch> watches = new ConcurrentHashMap<>();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private ScheduledFuture<?> poller;
+    private boolean closed;
+
+    public CeTaskWatcher(SonarApi sonarApi) {
+        this(sonarApi, DEFAULT_POLL_INTERVAL);
+    }
+
+    public CeTaskWatcher(SonarApi sonarApi, Duration pollInterval) {
+
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("pollInterval must be greater than 0");
+        }
+
+        this.sonarApi = sonarApi;
+        this.pollInterval = pollInterval.toMillis();
+    }
+
+    /**
+     * Watches a CE task until it reaches the SUCCESS, FAILED or CANCELED status. Watching a task that
+     * is already watched returns the same future.
+     *
+     * @param taskId the ID of the task to watch
+     * @param componentKey the key of the component of the task, can be null but then the task is looked up
+     * in the activity of all components
+     * @param timeout the maximum time to wait for the task to finish
+     * @return a CompletableFuture that completes with the finished task, or exceptionally with a
+     * SonarApiException if the timeout elapses or the watcher is closed. Cancelling it stops the watch.
+     */
+    public CompletableFuture<CeTask.Task> watch(String taskId, String componentKey, Duration timeout) {
+
+        if (taskId == null) {
+            throw new RuntimeException("ID cannot be null");
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        ScheduledExecutorService scheduler = sonarApi.getScheduler();
+        synchronized (this) {
+
+            if (closed) {
+                throw new IllegalStateException("CeTaskWatcher is closed");
+            }
+
+            Watch watch = watches.compute(taskId, (id, existing) -> {
+                if (existing == null || existing.future.isDone()) {
+                    return (new Watch(componentKey, deadline));
+                }
+
+                existing.deadline = Math.max(existing.deadline, deadline);
+                return (existing);
+            });
+
+            if (poller == null) {
+                poller = scheduler.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+            }
+
+            return (watch.future);
+        }
+    }
+
+    /**
+     * Get the number of tasks that are being watched.
+     *
+     * @return the number of tasks that are being watched
+     */
+    public int getWatchedCount() {
+        return (watches.size());
+    }
+
+    /**
+     * Stops polling, the futures of the tasks that are still watched complete exceptionally.
+     */
+    @Override
+    public void close() {
+
+        synchronized (this) {
+            closed = true;
+            if (poller != null) {
+                poller.cancel(false);
+                poller = null;
+            }
+        }
+
+        for (Iterator<Watch> it = watches.values().iterator(); it.hasNext(); ) {
+            it.next().future.completeExceptionally(new SonarApiException("CeTaskWatcher has been closed"));
+            it.remove();
+        }
+    }
+
+    // Runs on the scheduler, the queries are run on the bulk executor so the scheduler is never blocked
+    private void poll() {
+
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Map<String, Map<String, Watch>> groups = groupWatches();
+            if (groups.isEmpty()) {
+                polling.set(false);
+                return;
+            }
+
+            List<CompletableFuture<Void>> queries = new ArrayList<>(groups.size());
+            for (Map.Entry<String, Map<String, Watch>> group : groups.entrySet()) {
+                queries.add(CompletableFuture.runAsync(() -> resolve(group.getKey(), group.getValue()), sonarApi.getBulkExecutor()));
+            }
+
+            CompletableFuture.allOf(queries.toArray(new CompletableFuture<?>[0])).whenComplete((result, thrown) -> polling.set(false));
+        } catch (RuntimeException e) {
+            polling.set(false);
+            LOGGER.log(Level.WARNING, "Failed to poll the watched CE tasks", e);
+        }
+    }
+
+    // Drops the finished and expired watches and groups the others by component, the null component key
+    // is mapped to the empty string
+    private Map<String, Map<String, Watch>> groupWatches() {
+
+        long now = System.nanoTime();
+        Map<String, Map<String, Watch>> groups = new HashMap<>();
+        for (Iterator<Map.Entry<String, Watch>> it = watches.entrySet().iterator(); it.hasNext(); ) {
+
+            Map.Entry<String, Watch> entry = it.next();
+            Watch watch = entry.getValue();
+            if (watch.future.isDone()) {
+                it.remove();
+            } else if (now - watch.deadline >= 0) {
+                it.remove();
+                watch.future.completeExceptionally(new SonarApiException("Timed out waiting for CE task " + entry.getKey()));
+            } else {
+                String group = (watch.componentKey != null ? watch.componentKey : "");
+                groups.computeIfAbsent(group, k -> new HashMap<>()).put(entry.getKey(), watch);
+            }
+        }
+
+        return (groups);
+    }
+
+    private void resolve(String componentKey, Map<String, Watch> group) {
+
+        long minSubmittedAt = Long.MAX_VALUE;
+        for (Watch watch : group.values()) {
+            minSubmittedAt = Math.min(minSubmittedAt, watch.watchedAt);
+        }
+
+        CeActivityFilter filter = new CeActivityFilter()
+            .withComponent(componentKey.isEmpty() ? null : componentKey)
+            .withStatuses(FINISHED_STATUSES)
+            .withMinSubmittedAt(new Date(minSubmittedAt - SUBMISSION_SLACK.toMillis()));
+
+        Map<String, Watch> remaining = new HashMap<>(group);
+        try {
+            int page = 1;
+            long count;
+            do {
+                count = sonarApi.getCeApi().getActivity(filter, page++, CeApi.MAX_ACTIVITY_PAGE_SIZE, task -> {
+                    Watch watch = remaining.remove(task.getId());
+                    if (watch != null && watches.remove(task.getId(), watch)) {
+                        watch.future.complete(task);
+                    }
+                });
+            } while (count == CeApi.MAX_ACTIVITY_PAGE_SIZE && !remaining.isEmpty() && page <= MAX_ACTIVITY_PAGES);
+
+            // The activity only pages through the first MAX_SEARCH_RESULTS tasks, the tasks that were not found
+            // in them are looked up one by one
+            if (count == CeApi.MAX_ACTIVITY_PAGE_SIZE && !remaining.isEmpty()) {
+                resolveEach(remaining);
+            }
+
+        } catch (SonarApiException e) {
+            LOGGER.log(Level.WARNING, "Failed to get the CE activity of " +
+                (componentKey.isEmpty() ? "all components" : componentKey) + ", will retry on the next poll", e);
+        }
+    }
+
+    private void resolveEach(Map<String, Watch> remaining) throws SonarApiException {
+
+        for (Map.Entry<String, Watch> entry : remaining.entrySet()) {
+
+            CeTask.Task task = sonarApi.getCeApi().getCeTask(entry.getKey(), null).getTask();
+            if (task != null && FINISHED_STATUSES.contains(task.getStatus()) && watches.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().future.complete(task);
+            }
+        }
+    }
+
+    private static class Watch {
+
+        private final String componentKey;
+        private final long watchedAt = System.currentTimeMillis();
+        private final CompletableFuture<CeTask.Task> future = new CompletableFuture<>();
+        private volatile long deadline;
+
+        Watch(String componentKey, long deadline) {
+            this.componentKey = componentKey;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Component;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * <p>Visits all the components of a tree, also when it has more than the {@link Constants#MAX_SEARCH_RESULTS}
+ * components api/components/tree can page through.</p>
+ *
+ * <p>The walk starts at the base component. When all the components below a component fit in the cap they are
+ * paged through in one pass, otherwise its children are listed and each child directory is walked the same way as a
+ * separate task of a work-stealing ForkJoinPool, so the subtrees of a large project are expanded in parallel. A task
+ * waiting for a page is a managed blocker of the pool, which can start another thread to keep the others busy. The
+ * components are passed to the visitor page by page as they are received, the tree is never held in memory.
+ * Components are visited once each, in no particular order, and the base component itself is not visited.</p>
+ *
+ * <p>The visitor is called concurrently from the threads of the pool and must be thread safe.</p>
+ */
+public class ComponentTreeWalker {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    /** The default number of threads expanding the tree. */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    /**
+     * Receives the components of the tree.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Called once for each component of the tree, concurrently from several threads.
+         *
+         * @param component the component
+         */
+        void visit(Component component);
+    }
+
+    private final ComponentsApi api;
+    private final String component;
+    private String branch;
+    private String pullRequest;
+    private List<String> qualifiers;
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private final LongAdder visited = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final AtomicInteger truncated = new AtomicInteger();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    ComponentTreeWalker(ComponentsApi api, String component) {
+        this.api = api;
+        this.component = component;
+    }
+
+    public ComponentTreeWalker withBranch(String branch) {
+        this.branch = branch;
+        return (this);
+    }
+
+    public ComponentTreeWalker withPullRequest(String pullRequest) {
+        this.pullRequest = pullRequest;
+        return (this);
+    }
+
+    /**
+     * Only visit the components with one of the specified qualifiers, for example "FIL" and "UTS".
+     * All the directories are still walked.
+     *
+     * @param qualifiers the qualifiers of the components to visit, null to visit all of them
+     * @return this ComponentTreeWalker instance
+     */
+    public ComponentTreeWalker withQualifiers(List<String> qualifiers) {
+        this.qualifiers = (qualifiers != null && !qualifiers.isEmpty() ? new ArrayList<>(qualifiers) : null);
+        return (this);
+    }
+
+    /**
+     * Sets the number of threads of the ForkJoinPool expanding the tree.
+     *
+     * @param parallelism the number of threads
+     * @return this ComponentTreeWalker instance
+     */
+    public ComponentTreeWalker withParallelism(int parallelism) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+
+        this.parallelism = parallelism;
+        return (this);
+    }
+
+    /**
+     * Get the number of components passed to the visitor so far, it can be read while the walk is running.
+     *
+     * @return the number of components visited
+     */
+    public long getVisitedCount() {
+        return (visited.sum());
+    }
+
+    /**
+     * Get the number of pages requested so far.
+     *
+     * @return the number of pages requested
+     */
+    public long getRequestCount() {
+        return (requests.sum());
+    }
+
+    /**
+     * Get the number of directories with more direct children than the cap, whose children past
+     * {@link Constants#MAX_SEARCH_RESULTS} could not be visited.
+     *
+     * @return the number of truncated directories
+     */
+    public int getTruncatedCount() {
+        return (truncated.get());
+    }
+
+    /**
+     * Get the number of components visited per second, since the start of the walk and up to its end
+     * if it has ended.
+     *
+     * @return the number of components visited per second, 0 if the walk has not started
+     */
+    public double getComponentsPerSecond() {
+
+        long start = startNanos;
+        if (start == 0) {
+            return (0);
+        }
+
+        long end = (endNanos != 0 ? endNanos : System.nanoTime());
+        double seconds = Math.max(end - start, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+        return (visited.sum() / seconds);
+    }
+
+    /**
+     * Walks the tree, returning once all the components have been passed to the visitor.
+     *
+     * @param visitor the visitor that receives the components
+     * @return the number of components visited
+     * @throws SonarApiException if any of the requests fails, the walk is stopped
+     */
+    public long walk(Visitor visitor) throws SonarApiException {
+
+        visited.reset();
+        requests.reset();
+        truncated.set(0);
+        endNanos = 0;
+        startNanos = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SubtreeTask(component, visitor));
+            return (visited.sum());
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof SonarApiException) {
+                    throw (SonarApiException) cause;
+                }
+            }
+
+            throw e;
+        } finally {
+            endNanos = System.nanoTime();
+            pool.shutdownNow();
+        }
+    }
+
+    private boolean isVisited(Component child) {
+        return (qualifiers == null || qualifiers.contains(child.getQualifier()));
+    }
+
+    private static boolean isExpandable(Component child) {
+        return (!Component.FILE.equals(child.getQualifier()) && !Component.UNIT_TEST_FILE.equals(child.getQualifier()));
+    }
+
+    private void visitPage(List<Component> page, Visitor visitor, boolean filter) {
+
+        for (Component child : page) {
+            if (!filter || isVisited(child)) {
+                visitor.visit(child);
+                visited.increment();
+            }
+        }
+    }
+
+    // Runs a call of the pager that may fetch a page as a ManagedBlocker, and counts the pages it fetched
+    private <R> R fetch(Pager<Component> pager, Supplier<R> call) {
+
+        int currentPage = pager.getCurrentPage();
+        PageBlocker<R> blocker = new PageBlocker<>(call);
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(new SonarApiException(e));
+        } finally {
+            requests.add(pager.getCurrentPage() - currentPage);
+        }
+
+        return (blocker.result);
+    }
+
+    /**
+     * Lets the ForkJoinPool start a spare thread while a task waits for a page, the threads of the pool would
+     * otherwise all be blocked on requests while other tasks are queued.
+     */
+    private static class PageBlocker<R> implements ForkJoinPool.ManagedBlocker {
+
+        private final Supplier<R> call;
+        private R result;
+        private boolean done;
+
+        PageBlocker(Supplier<R> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean block() {
+            result = call.get();
+            done = true;
+            return (true);
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return (done);
+        }
+    }
+
+    /**
+     * Visits the components below a component, in one pass when they fit in the cap, otherwise by listing its
+     * children and forking a task per child that has children of its own.
+     */
+    private class SubtreeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        private final Visitor visitor;
+
+        SubtreeTask(String key, Visitor visitor) {
+            this.key = key;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected void compute() {
+
+            // The first page tells whether the whole subtree fits in the cap, it is the first page of the pass if it does
+            Pager<Component> subtree = api.getTree(key, branch, pullRequest, "all", qualifiers, ComponentsApi.MAX_TREE_PAGE_SIZE);
+            if (!fetch(subtree, subtree::isTruncated)) {
+                while (subtree.hasNext()) {
+                    visitPage(fetch(subtree, subtree::next), visitor, false);
+                }
+
+                return;
+            }
+
+            Pager<Component> children = api.getTree(key, branch, pullRequest, "children", null, ComponentsApi.MAX_TREE_PAGE_SIZE);
+            if (fetch(children, children::isTruncated)) {
+                truncated.incrementAndGet();
+                LOGGER.warning("Component " + key + " has " + children.getTotalItems() + " children, only the first " +
+                    Constants.MAX_SEARCH_RESULTS + " and their subtrees are visited");
+            }
+
+            List<SubtreeTask> tasks = new ArrayList<>();
+            while (children.hasNext()) {
+
+                List<Component> page = fetch(children, children::next);
+                visitPage(page, visitor, true);
+                for (Component child : page) {
+                    if (isExpandable(child)) {
+                        SubtreeTask task = new SubtreeTask(child.getKey(), visitor);
+                        task.fork();
+                        tasks.add(task);
+                    }
+                }
+            }
+
+            for (SubtreeTask task : tasks) {
+                task.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Component;
+
+import java.util.List;
+
+/**
+ * This class implements the client side API for the SonarQube components web services.
+ */
+public class ComponentsApi extends AbstractApi {
+
+    /** The maximum page size of api/components/tree. */
+    public static final int MAX_TREE_PAGE_SIZE = 500;
+
+    public ComponentsApi(SonarApi sonarApi) {
+        super(sonarApi);
+    }
+
+    /**
+     * Get a Pager of the components of a tree. The base component itself is not included, and at most the first
+     * {@link #MAX_SEARCH_RESULTS} components can be paged through, use {@link #getTreeWalker(String)} to get all of
+     * the components of a large tree.
+     *
+     * @param component the key of the base component
+     * @param strategy the strategy, one of "all", "children" or "leaves", null for "all"
+     * @param qualifiers the qualifiers of the components to get, null for all of them
+     * @param itemsPerPage the number of components per page, at most {@link #MAX_TREE_PAGE_SIZE}
+     * @return a Pager of the components
+     */
+    public Pager<Component> getTree(String component, String strategy, List<String> qualifiers, int itemsPerPage) {
+        return (getTree(component, null, null, strategy, qualifiers, itemsPerPage));
+    }
+
+    /**
+     * Get a ComponentTreeWalker that visits all the components of a tree, however many there are.
+     *
+     * @param component the key of the base component
+     * @return a new ComponentTreeWalker for the tree
+     */
+    public ComponentTreeWalker getTreeWalker(String component) {
+
+        if (component == null) {
+            throw new RuntimeException("component cannot be null");
+        }
+
+        return (new ComponentTreeWalker(this, component));
+    }
+
+    Pager<Component> getTree(String component, String branch, String pullRequest, String strategy,
+            List<String> qualifiers, int itemsPerPage) {
+
+        if (component == null) {
+            throw new RuntimeException("component cannot be null");
+        }
+
+        SonarApiForm formData = new SonarApiForm()
+            .withParam("component", component)
+            .withParam("branch", branch)
+            .withParam("pullRequest", pullRequest)
+            .withParam("strategy", strategy)
+            .withParam("qualifiers", (qualifiers != null && !qualifiers.isEmpty() ? String.join(",", qualifiers) : null));
+        return (new Pager<>(this, Component.class, "components", itemsPerPage, formData.asMap(), "api/components/tree"));
+    }
+}
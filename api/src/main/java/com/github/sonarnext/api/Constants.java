@@ -9,31 +9,84 @@ import java.util.Map;
 
 public interface Constants {
 
-
-    /** The total number of items HTTP header key. */
+    /*
+     * The paging headers below are never sent by SonarQube, which returns the paging in the body of
+     * the response. They are kept for source compatibility, use a Pager to page through results.
+     */
+
+    /**
+     * The total number of items HTTP header key.
+     *
+     * @deprecated see {@link Pager}
+     */
+    @Deprecated
     public static final String TOTAL_HEADER = "X-Total";
 
-    /** The total number of pages HTTP header key. */
+    /**
+     * The total number of pages HTTP header key.
+     *
+     * @deprecated see {@link Pager}
+     */
+    @Deprecated
     public static final String TOTAL_PAGES_HEADER = "X-Total-Pages";
 
-    /** The number of items per page HTTP header key. */
+    /**
+     * The number of items per page HTTP header key.
+     *
+     * @deprecated see {@link Pager}
+     */
+    @Deprecated
     public static final String PER_PAGE = "X-Per-Page";
 
-    /** The index of the current page (starting at 1) HTTP header key. */
+    /**
+     * The index of the current page (starting at 1) HTTP header key.
+     *
+     * @deprecated see {@link Pager}
+     */
+    @Deprecated
     public static final String PAGE_HEADER = "X-Page";
 
-    /** The index of the next page HTTP header key. */
+    /**
+     * The index of the next page HTTP header key.
+     *
+     * @deprecated see {@link Pager}
+     */
+    @Deprecated
     public static final String NEXT_PAGE_HEADER = "X-Next-Page";
 
-    /** The index of the previous page HTTP header key. */
+    /**
+     * The index of the previous page HTTP header key.
+     *
+     * @deprecated see {@link Pager}
+     */
+    @Deprecated
     public static final String PREV_PAGE_HEADER = "X-Prev-Page";
 
-    /** Items per page param HTTP header key. */
+    /**
+     * Items per page param HTTP header key.
+     *
+     * @deprecated SonarQube does not use this param, use {@link #PAGE_SIZE_PARAM}
+     */
+    @Deprecated
     public static final String PER_PAGE_PARAM = "per_page";
 
-    /** Page param HTTP header key. */
+    /**
+     * Page param HTTP header key.
+     *
+     * @deprecated SonarQube does not use this param, use {@link #PAGE_INDEX_PARAM}
+     */
+    @Deprecated
     public static final String PAGE_PARAM = "page";
 
+    /** The 1-based page index query param of the SonarQube web services. */
+    public static final String PAGE_INDEX_PARAM = "p";
+
+    /** The page size query param of the SonarQube web services. */
+    public static final String PAGE_SIZE_PARAM = "ps";
+
+    /** The maximum number of results the SonarQube search web services can page through. */
+    public static final int MAX_SEARCH_RESULTS = 10000;
+
 
 
     /** Enum to specify encoding of file contents. */
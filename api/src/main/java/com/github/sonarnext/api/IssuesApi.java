@@ -0,0 +1,172 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Facet;
+import com.github.sonarnext.api.models.Issue;
+import com.github.sonarnext.api.models.IssueFilter;
+import com.github.sonarnext.api.models.IssueSearchResult;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * This class implements the client side API for the SonarQube issues web services.
+ */
+public class IssuesApi extends AbstractApi {
+
+    /** The maximum page size of api/issues/search. */
+    public static final int MAX_SEARCH_PAGE_SIZE = 500;
+
+    // A createdInLast period, for example "1y", "1m2w" or "10d"
+    private static final Pattern PERIOD_PATTERN = Pattern.compile("(?:(\\d+)y)?(?:(\\d+)m)?(?:(\\d+)w)?(?:(\\d+)d)?");
+
+    public IssuesApi(SonarApi sonarApi) {
+        super(sonarApi);
+    }
+
+    /**
+     * Get a page of issues, with the facets requested by the filter.
+     *
+     * @param filter the filter for the issues, can be null
+     * @param page the 1-based index of the page to get
+     * @param perPage the number of issues per page, at most {@link #MAX_SEARCH_PAGE_SIZE}
+     * @return the IssueSearchResult holding the page of issues and the facets
+     * @throws SonarApiException if any exception occurs
+     */
+    public IssueSearchResult searchIssues(IssueFilter filter, int page, int perPage) throws SonarApiException {
+        Response response = get(Response.Status.OK, getQueryParams(filter, page, perPage).asMap(), "api/issues/search");
+        return (response.readEntity(IssueSearchResult.class));
+    }
+
+    /**
+     * Streams a page of issues to a consumer. The response is parsed incrementally and each issue is passed
+     * to the consumer as soon as it is read, the facets of the response are skipped.
+     *
+     * @param filter the filter for the issues, can be null
+     * @param page the 1-based index of the page to get
+     * @param perPage the number of issues per page, at most {@link #MAX_SEARCH_PAGE_SIZE}
+     * @param consumer the consumer that receives each issue of the page
+     * @return the number of issues passed to the consumer
+     * @throws SonarApiException if any exception occurs
+     */
+    public long searchIssues(IssueFilter filter, int page, int perPage, Consumer<? super Issue> consumer) throws SonarApiException {
+        Response response = get(Response.Status.OK, getQueryParams(filter, page, perPage).asMap(), "api/issues/search");
+        return (readArray(response, "issues", Issue.class, consumer));
+    }
+
+    /**
+     * Get the facets requested by the filter, without getting the issues.
+     *
+     * @param filter the filter for the issues, with the facets to compute
+     * @return a List of the facets
+     * @throws SonarApiException if any exception occurs
+     */
+    public List<Facet> getIssueFacets(IssueFilter filter) throws SonarApiException {
+        return (searchIssues(filter, 1, 1).getFacets());
+    }
+
+    /**
+     * Get a Pager of the issues matching the filter. Only one page is held in memory at a time,
+     * and at most the first {@link #MAX_SEARCH_RESULTS} issues can be paged through.
+     *
+     * @param filter the filter for the issues, can be null
+     * @param itemsPerPage the number of issues per page, at most {@link #MAX_SEARCH_PAGE_SIZE}
+     * @return a Pager of the issues
+     */
+    public Pager<Issue> getIssues(IssueFilter filter, int itemsPerPage) {
+        return (new Pager<>(this, Issue.class, "issues", itemsPerPage, getQueryParams(filter).asMap(), "api/issues/search"));
+    }
+
+    /**
+     * Get a Stream of the issues matching the filter, the pages are fetched as the Stream reaches them.
+     * At most the first {@link #MAX_SEARCH_RESULTS} issues are returned, use {@link #exportIssues(IssueFilter)}
+     * to get all of them.
+     *
+     * @param filter the filter for the issues, can be null
+     * @return a Stream of the issues
+     */
+    public Stream<Issue> streamIssues(IssueFilter filter) {
+        return (getIssues(filter, MAX_SEARCH_PAGE_SIZE).stream());
+    }
+
+    /**
+     * Get a PartitionedSearch that exports all the issues matching the filter, however many there are. The search
+     * is split by creation date, within the createdAfter and createdBefore of the filter if they are set, and the
+     * issues are de-duplicated by key. A createdInLast period of the filter is turned into the start of the date
+     * range, as SonarQube does not accept it together with createdAfter or createdBefore. Splits by facet, for
+     * example by "types" or "severities", can be added to the returned PartitionedSearch before calling
+     * {@link PartitionedSearch#stream()}, as long as the filter does not set the same param.
+     *
+     * @param filter the filter for the issues, can be null
+     * @return a PartitionedSearch of the issues
+     * @throws IllegalArgumentException if the createdInLast period of the filter is not valid
+     */
+    public PartitionedSearch<Issue> exportIssues(IssueFilter filter) {
+
+        // The range is in whole seconds, the precision of the date params
+        long now = TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        Date from = (filter != null && filter.getCreatedAfter() != null ? filter.getCreatedAfter() : new Date(0));
+        Date to = (filter != null && filter.getCreatedBefore() != null ? filter.getCreatedBefore() :
+            new Date(now + TimeUnit.DAYS.toMillis(1)));
+
+        MultivaluedMap<String, String> queryParams = getQueryParams(filter).asMap();
+        if (filter != null && filter.getCreatedInLast() != null) {
+            Date createdInLastStart = getPeriodStart(filter.getCreatedInLast(), now);
+            if (createdInLastStart.after(from)) {
+                from = createdInLastStart;
+            }
+
+            queryParams.remove("createdInLast");
+        }
+
+        return (new PartitionedSearch<>(this, Issue.class, "issues", queryParams, "api/issues/search")
+            .withDateRange("createdAfter", "createdBefore", from, to)
+            .withPageSize(MAX_SEARCH_PAGE_SIZE)
+            .withKey(Issue::getKey));
+    }
+
+    /**
+     * Get the start of a createdInLast period, such as "1m2w" or "10d", made of a number of years (y), months (m),
+     * weeks (w) and days (d). The period is counted back in UTC, so the result does not depend on the default
+     * time zone of the JVM.
+     *
+     * @param period the period
+     * @param now the end of the period in epoch milliseconds
+     * @return the start of the period
+     * @throws IllegalArgumentException if the period is not valid
+     */
+    static Date getPeriodStart(String period, long now) {
+
+        Matcher matcher = PERIOD_PATTERN.matcher(period.trim());
+        if (period.trim().isEmpty() || !matcher.matches()) {
+            throw new IllegalArgumentException("Invalid createdInLast period: " + period);
+        }
+
+        ZonedDateTime start = Instant.ofEpochMilli(now).atZone(ZoneOffset.UTC);
+        start = start.minusYears(getAmount(matcher, 1)).minusMonths(getAmount(matcher, 2))
+            .minusWeeks(getAmount(matcher, 3)).minusDays(getAmount(matcher, 4));
+        return (Date.from(start.toInstant()));
+    }
+
+    private static long getAmount(Matcher matcher, int group) {
+        String amount = matcher.group(group);
+        return (amount != null ? Long.parseLong(amount) : 0L);
+    }
+
+    private static SonarApiForm getQueryParams(IssueFilter filter) {
+        return (filter != null ? filter.getQueryParams() : new SonarApiForm());
+    }
+
+    private static SonarApiForm getQueryParams(IssueFilter filter, int page, int perPage) {
+        return (getQueryParams(filter).withParam(PAGE_INDEX_PARAM, page).withParam(PAGE_SIZE_PARAM, perPage));
+    }
+}
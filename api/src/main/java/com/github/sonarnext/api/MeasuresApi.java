@@ -0,0 +1,591 @@
+package com.github.sonarnext.api;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.sonarnext.api.models.Component;
+import com.github.sonarnext.api.models.MeasureTable;
+import com.github.sonarnext.api.models.Paging;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * This class implements the client side API for the SonarQube measures web services. The measures are decoded
+ * straight from the response into a {@link MeasureTable}, without binding an object per component or per measure.
+ */
+public class MeasuresApi extends AbstractApi {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    /** The maximum page size of api/measures/component_tree. */
+    public static final int MAX_COMPONENT_TREE_PAGE_SIZE = 500;
+
+    /** The maximum number of metric keys of a single api/measures/component_tree call. */
+    public static final int MAX_COMPONENT_TREE_METRICS = 15;
+
+    /** The maximum number of project keys of a single api/measures/search call. */
+    public static final int MAX_SEARCH_PROJECT_KEYS = 100;
+
+    /**
+     * The maximum length of the URL of an api/measures/search call. Most servers and proxies reject
+     * request lines longer than 8 KB, this leaves room for the rest of the request line.
+     */
+    public static final int MAX_SEARCH_URL_LENGTH = 6000;
+
+    // The number of component_tree pages fetched concurrently
+    private static final int COMPONENT_TREE_PARALLELISM = 8;
+
+    public MeasuresApi(SonarApi sonarApi) {
+        super(sonarApi);
+    }
+
+    /**
+     * Get the measures of all the components of a tree, see {@link #getComponentTree(String, String, String, List, List)}.
+     *
+     * @param component the key of the base component
+     * @param metricKeys the keys of the metrics to get
+     * @return a MeasureTable holding a row per component of the tree, in path order
+     * @throws SonarApiException if any exception occurs
+     */
+    public MeasureTable getComponentTree(String component, List<String> metricKeys) throws SonarApiException {
+        return (getComponentTree(component, null, null, null, metricKeys));
+    }
+
+    /**
+     * <p>Get the measures of the components of a tree. The pages are fetched concurrently on the bulk executor and
+     * decoded straight into the returned table. The metrics are fetched {@link #MAX_COMPONENT_TREE_METRICS} at a
+     * time, the most the web service accepts, and joined by component key. The base component itself is not
+     * included, only its descendants.</p>
+     *
+     * <p>The web service only pages through the first {@link #MAX_SEARCH_RESULTS} components, a larger tree is split
+     * the way {@link ComponentTreeWalker} splits it: the children of the base component are fetched in one pass, and
+     * the subtree of each child directory in another, split again if it is still too large. The components are then
+     * in path order within each pass. The "children" strategy cannot be split, only the first
+     * {@link #MAX_SEARCH_RESULTS} children are returned.</p>
+     *
+     * @param component the key of the base component
+     * @param branch the branch, can be null
+     * @param strategy the strategy, one of "all", "children" or "leaves", null for "all"
+     * @param qualifiers the qualifiers of the components to get, for example "FIL", null for all of them
+     * @param metricKeys the keys of the metrics to get
+     * @return a MeasureTable holding a row per component
+     * @throws SonarApiException if any exception occurs
+     */
+    public MeasureTable getComponentTree(String component, String branch, String strategy, List<String> qualifiers,
+            List<String> metricKeys) throws SonarApiException {
+
+        if (component == null) {
+            throw new RuntimeException("component cannot be null");
+        }
+
+        if (metricKeys == null || metricKeys.isEmpty()) {
+            throw new IllegalArgumentException("metricKeys cannot be empty or null");
+        }
+
+        List<String> firstGroup = metricKeys.subList(0, Math.min(metricKeys.size(), MAX_COMPONENT_TREE_METRICS));
+        List<TreePass> passes = planComponentTree(component, branch, strategy, qualifiers, firstGroup, metricKeys);
+        int total = 0;
+        for (TreePass pass : passes) {
+            total += pass.getCappedTotal();
+        }
+
+        MeasureTable table = new MeasureTable(metricKeys, Math.max(total, 1));
+        for (int from = 0; from < metricKeys.size(); from += MAX_COMPONENT_TREE_METRICS) {
+
+            List<String> group = metricKeys.subList(from, Math.min(metricKeys.size(), from + MAX_COMPONENT_TREE_METRICS));
+            boolean append = (from == 0);
+
+            // The pages of all the passes, in order, each with the row of its first component in the table
+            List<TreePage> pages = new ArrayList<>();
+            int offset = 0;
+            for (TreePass pass : passes) {
+                int lastPage = (pass.getCappedTotal() + MAX_COMPONENT_TREE_PAGE_SIZE - 1) / MAX_COMPONENT_TREE_PAGE_SIZE;
+                for (int page = 1; page <= Math.max(lastPage, 1); page++) {
+                    pages.add(new TreePage(pass, page, offset + (page - 1) * MAX_COMPONENT_TREE_PAGE_SIZE));
+                }
+
+                offset += pass.getCappedTotal();
+            }
+
+            for (int i = 0; i < pages.size(); i += COMPONENT_TREE_PARALLELISM) {
+
+                List<TreePage> window = pages.subList(i, Math.min(pages.size(), i + COMPONENT_TREE_PARALLELISM));
+                List<MeasureTable> tables = invokeAll(window, p -> (append && p.page == 1 ? p.pass.firstPage :
+                    getComponentTreePage(p.pass.getFormData(branch, group), p.page, metricKeys, null)));
+                for (int j = 0; j < tables.size(); j++) {
+                    join(table, tables.get(j), window.get(j).offset, append);
+                }
+            }
+
+            // The first pages were only kept for the first group of metrics
+            for (TreePass pass : passes) {
+                pass.firstPage = null;
+            }
+        }
+
+        table.trimToSize();
+        return (table);
+    }
+
+    /**
+     * Splits a tree into passes of at most {@link #MAX_SEARCH_RESULTS} components each. The first page of every
+     * pass is fetched with the first group of metrics, it tells the number of components of the pass and is kept
+     * so it is not fetched twice. A pass that is too large is replaced by a pass over the children of its component
+     * and a pass over the subtree of each child directory.
+     */
+    private List<TreePass> planComponentTree(String component, String branch, String strategy, List<String> qualifiers,
+            List<String> firstGroup, List<String> metricKeys) throws SonarApiException {
+
+        List<TreePass> passes = new ArrayList<>();
+        passes.add(new TreePass(component, strategy, qualifiers));
+        List<TreePass> pending = passes;
+        while (!pending.isEmpty()) {
+
+            List<MeasureTable> firstPages = invokeAll(pending, pass -> {
+                Paging[] paging = new Paging[1];
+                MeasureTable page = getComponentTreePage(pass.getFormData(branch, firstGroup), 1, metricKeys, paging);
+                pass.total = (paging[0] != null && paging[0].getTotal() != null ? paging[0].getTotal() : page.size());
+                page.trimToSize();
+                return (page);
+            });
+
+            Map<TreePass, List<TreePass>> splits = new IdentityHashMap<>();
+            List<TreePass> expanded = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+
+                TreePass pass = pending.get(i);
+                pass.firstPage = firstPages.get(i);
+                if (pass.total <= MAX_SEARCH_RESULTS) {
+                    continue;
+                }
+
+                if ("children".equals(pass.strategy)) {
+                    LOGGER.warning("Component " + pass.component + " has " + pass.total + " children, only the first " +
+                        MAX_SEARCH_RESULTS + " are returned");
+                } else {
+                    List<TreePass> split = splitComponentTree(pass, branch);
+                    splits.put(pass, split);
+                    expanded.addAll(split);
+                }
+            }
+
+            List<TreePass> planned = new ArrayList<>(passes.size() + expanded.size());
+            for (TreePass pass : passes) {
+                List<TreePass> split = splits.get(pass);
+                if (split != null) {
+                    planned.addAll(split);
+                } else {
+                    planned.add(pass);
+                }
+            }
+
+            passes = planned;
+            pending = expanded;
+        }
+
+        return (passes);
+    }
+
+    /**
+     * Get the passes replacing a pass that is too large: one over the children of its component that the strategy
+     * selects, then one over the subtree of each child directory, in path order.
+     */
+    private List<TreePass> splitComponentTree(TreePass pass, String branch) {
+
+        boolean leaves = "leaves".equals(pass.strategy);
+        List<String> childQualifiers = (leaves && pass.qualifiers == null ?
+            Arrays.asList(Component.FILE, Component.UNIT_TEST_FILE) : pass.qualifiers);
+
+        List<TreePass> split = new ArrayList<>();
+        split.add(new TreePass(pass.component, "children", childQualifiers));
+
+        Pager<Component> directories = getSonarApi().getComponentsApi().getTree(pass.component, branch, null,
+            "children", Collections.singletonList(Component.DIRECTORY), ComponentsApi.MAX_TREE_PAGE_SIZE);
+        if (directories.isTruncated()) {
+            LOGGER.warning("Component " + pass.component + " has " + directories.getTotalItems() +
+                " child directories, only the first " + MAX_SEARCH_RESULTS + " and their subtrees are returned");
+        }
+
+        while (directories.hasNext()) {
+            for (Component directory : directories.next()) {
+                split.add(new TreePass(directory.getKey(), pass.strategy, pass.qualifiers));
+            }
+        }
+
+        return (split);
+    }
+
+    /**
+     * Get the measures of any number of projects. The project keys are packed into as few api/measures/search calls
+     * as possible, each with at most {@link #MAX_SEARCH_PROJECT_KEYS} keys and a URL no longer than
+     * {@link #MAX_SEARCH_URL_LENGTH} characters, the calls are made concurrently on the bulk executor and their
+     * results are merged into a single table.
+     *
+     * @param projectKeys the keys of the projects, duplicates are only requested once
+     * @param metricKeys the keys of the metrics to get
+     * @return a MeasureTable holding a row per project that has at least one of the measures
+     * @throws SonarApiException if any of the calls fails
+     */
+    public MeasureTable searchMeasures(Collection<String> projectKeys, List<String> metricKeys) throws SonarApiException {
+
+        if (projectKeys == null || projectKeys.isEmpty()) {
+            throw new IllegalArgumentException("projectKeys cannot be empty or null");
+        }
+
+        if (metricKeys == null || metricKeys.isEmpty()) {
+            throw new IllegalArgumentException("metricKeys cannot be empty or null");
+        }
+
+        String metricParam = join(metricKeys);
+        List<List<String>> batches = packProjectKeys(new LinkedHashSet<>(projectKeys), metricParam);
+        if (batches.size() == 1) {
+            return (searchMeasures(batches.get(0), metricKeys, metricParam));
+        }
+
+        List<MeasureTable> tables = invokeAll(batches, batch -> searchMeasures(batch, metricKeys, metricParam));
+        int size = 0;
+        for (MeasureTable batchTable : tables) {
+            size += batchTable.size();
+        }
+
+        MeasureTable table = new MeasureTable(metricKeys, size);
+        for (MeasureTable batchTable : tables) {
+            table.addAll(batchTable);
+        }
+
+        return (table);
+    }
+
+    private MeasureTable searchMeasures(List<String> projectKeys, List<String> metricKeys, String metricParam) throws SonarApiException {
+        SonarApiForm formData = new SonarApiForm()
+            .withParam("projectKeys", join(projectKeys))
+            .withParam("metricKeys", metricParam);
+        Response response = get(Response.Status.OK, formData.asMap(), "api/measures/search");
+        MeasureTable table = new MeasureTable(metricKeys, projectKeys.size());
+        readMeasures(response, "measures", table, null);
+        return (table);
+    }
+
+    /**
+     * Splits the project keys into batches that each fit in a single api/measures/search call, filling each batch
+     * up to the key limit or the URL length limit before starting the next one.
+     */
+    List<List<String>> packProjectKeys(Collection<String> projectKeys, String metricParam) {
+
+        // The URL without the project keys, "/api/measures/search?projectKeys=" and "&metricKeys=" included
+        int baseLength = getSonarApi().getGitLabServerUrl().length() + 45 + encodedLength(metricParam);
+
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>(MAX_SEARCH_PROJECT_KEYS);
+        int length = baseLength;
+        for (String projectKey : projectKeys) {
+
+            // Each key after the first one is preceded by an encoded comma
+            int keyLength = encodedLength(projectKey) + (batch.isEmpty() ? 0 : 3);
+            if (!batch.isEmpty() && (batch.size() == MAX_SEARCH_PROJECT_KEYS || length + keyLength > MAX_SEARCH_URL_LENGTH)) {
+                batches.add(batch);
+                batch = new ArrayList<>(MAX_SEARCH_PROJECT_KEYS);
+                length = baseLength;
+                keyLength -= 3;
+            }
+
+            batch.add(projectKey);
+            length += keyLength;
+        }
+
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        return (batches);
+    }
+
+    /**
+     * Get the length of a query param value once percent-encoded, assuming everything but the unreserved
+     * characters is encoded, which is the most any encoder will produce.
+     */
+    private static int encodedLength(String value) {
+
+        int length = 0;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            boolean unreserved = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') ||
+                b == '-' || b == '.' || b == '_' || b == '~';
+            length += (unreserved ? 1 : 3);
+        }
+
+        return (length);
+    }
+
+    private MeasureTable getComponentTreePage(SonarApiForm formData, int page, List<String> metricKeys,
+            Paging[] paging) throws SonarApiException {
+
+        // The pages are fetched concurrently, each one needs its own copy of the params
+        SonarApiForm pageData = new SonarApiForm();
+        pageData.asMap().putAll(formData.asMap());
+        pageData.withParam(PAGE_INDEX_PARAM, page)
+            .withParam(PAGE_SIZE_PARAM, MAX_COMPONENT_TREE_PAGE_SIZE);
+        Response response = get(Response.Status.OK, pageData.asMap(), "api/measures/component_tree");
+        MeasureTable table = new MeasureTable(metricKeys, MAX_COMPONENT_TREE_PAGE_SIZE);
+        readMeasures(response, "components", table, paging);
+        return (table);
+    }
+
+    /**
+     * Copies the rows of a page into the table. The rows of the first metric group are appended, the rows of the
+     * later groups are matched by key, at the same position first since every group is fetched in path order.
+     */
+    private static void join(MeasureTable table, MeasureTable page, int offset, boolean append) {
+
+        if (append) {
+            table.addAll(page);
+            return;
+        }
+
+        int metricCount = table.getMetrics().size();
+        for (int pageRow = 0; pageRow < page.size(); pageRow++) {
+
+            String key = page.getComponentKey(pageRow);
+            int row = offset + pageRow;
+            if (row >= table.size() || !key.equals(table.getComponentKey(row))) {
+                row = table.indexOf(key);
+                if (row < 0) {
+                    row = table.addRow(key);
+                }
+            }
+
+            for (int metricIndex = 0; metricIndex < metricCount; metricIndex++) {
+                double value = page.getValue(pageRow, metricIndex);
+                if (!Double.isNaN(value)) {
+                    table.setValue(row, metricIndex, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the measures of the response into the table. The items field holds either components with
+     * a "measures" array (component_tree), or measures with a "component" field (search).
+     */
+    private void readMeasures(Response response, String itemsField, MeasureTable table, Paging[] paging) throws SonarApiException {
+
+        try (InputStream in = response.readEntity(InputStream.class);
+                JsonParser parser = getJacksonJson().getObjectMapper().getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            MeasureReader reader = new MeasureReader(table);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (itemsField.equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        if ("components".equals(itemsField)) {
+                            reader.readComponent(parser);
+                        } else {
+                            reader.readMeasure(parser);
+                            reader.addSearchMeasure();
+                        }
+                    }
+                } else if (paging != null && "paging".equals(name) && token == JsonToken.START_OBJECT) {
+                    paging[0] = getJacksonJson().getReader(Paging.class).readValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+        } catch (IOException e) {
+            throw handle(e);
+        }
+    }
+
+    private static String join(List<String> values) {
+        return (values != null && !values.isEmpty() ? String.join(",", values) : null);
+    }
+
+    /**
+     * A pass of api/measures/component_tree calls over at most {@link #MAX_SEARCH_RESULTS} components.
+     */
+    private static class TreePass {
+
+        private final String component;
+        private final String strategy;
+        private final List<String> qualifiers;
+        private int total;
+
+        // The first page fetched with the first group of metrics while planning the passes
+        private MeasureTable firstPage;
+
+        TreePass(String component, String strategy, List<String> qualifiers) {
+            this.component = component;
+            this.strategy = strategy;
+            this.qualifiers = qualifiers;
+        }
+
+        int getCappedTotal() {
+            return (Math.min(total, MAX_SEARCH_RESULTS));
+        }
+
+        SonarApiForm getFormData(String branch, List<String> group) {
+            return (new SonarApiForm()
+                .withParam("component", component)
+                .withParam("branch", branch)
+                .withParam("strategy", strategy)
+                .withParam("qualifiers", join(qualifiers))
+                .withParam("metricKeys", join(group))
+                .withParam("s", "path"));
+        }
+    }
+
+    /**
+     * A page of a pass, with the row of its first component in the table.
+     */
+    private static class TreePage {
+
+        private final TreePass pass;
+        private final int page;
+        private final int offset;
+
+        TreePage(TreePass pass, int page, int offset) {
+            this.pass = pass;
+            this.page = page;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Reads measures into a MeasureTable, reusing its buffers from one component to the next.
+     */
+    private static class MeasureReader {
+
+        private final MeasureTable table;
+
+        // The measure being read
+        private String metric;
+        private String component;
+        private double value;
+
+        // The measures of the component being read, its key can come after them
+        private int[] metricIndexes = new int[16];
+        private double[] values = new double[16];
+        private int count;
+
+        MeasureReader(MeasureTable table) {
+            this.table = table;
+        }
+
+        void readComponent(JsonParser parser) throws IOException {
+
+            String key = null;
+            count = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("key".equals(name)) {
+                    key = parser.getText();
+                } else if ("measures".equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readMeasure(parser);
+                        int metricIndex = table.getMetricIndex(metric);
+                        if (metricIndex >= 0) {
+                            if (count == metricIndexes.length) {
+                                metricIndexes = Arrays.copyOf(metricIndexes, count * 2);
+                                values = Arrays.copyOf(values, count * 2);
+                            }
+
+                            metricIndexes[count] = metricIndex;
+                            values[count++] = value;
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            int row = table.addRow(key);
+            for (int i = 0; i < count; i++) {
+                table.setValue(row, metricIndexes[i], values[i]);
+            }
+        }
+
+        void readMeasure(JsonParser parser) throws IOException {
+
+            metric = null;
+            component = null;
+            value = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("metric".equals(name)) {
+                    metric = parser.getText();
+                } else if ("component".equals(name)) {
+                    component = parser.getText();
+                } else if ("value".equals(name)) {
+                    value = parseValue(parser);
+                } else if ("period".equals(name) && token == JsonToken.START_OBJECT) {
+                    readPeriod(parser);
+                } else if ("periods".equals(name) && token == JsonToken.START_ARRAY) {
+                    // Older versions return a list of periods, the first one is the new code period
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readPeriod(parser);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        void addSearchMeasure() {
+
+            int metricIndex = table.getMetricIndex(metric);
+            if (component == null || metricIndex < 0) {
+                return;
+            }
+
+            int row = table.indexOf(component);
+            if (row < 0) {
+                row = table.addRow(component);
+            }
+
+            table.setValue(row, metricIndex, value);
+        }
+
+        private void readPeriod(JsonParser parser) throws IOException {
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                if ("value".equals(parser.getCurrentName()) && Double.isNaN(value)) {
+                    value = parseValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        private static double parseValue(JsonParser parser) throws IOException {
+
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return (parser.getDoubleValue());
+            } else if (token != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                return (Double.NaN);
+            }
+
+            try {
+                return (Double.parseDouble(parser.getText()));
+            } catch (NumberFormatException e) {
+                return (Double.NaN);
+            }
+        }
+    }
+}
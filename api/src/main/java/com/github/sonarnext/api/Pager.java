@@ -0,0 +1,379 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Paging;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>This class defines an Iterator implementation that is used as a paging iterator for all API methods that
+ * return a paginated list of items. SonarQube pages with the "p" (1-based page index) and "ps" (page size) query
+ * params and returns a "paging" object holding the pageIndex, pageSize and total with every page.</p>
+ *
+ * <p>Pages are only fetched when they are needed, and only the current page is held in memory, so the page size
+ * bounds the memory used. SonarQube cannot page past the first {@link Constants#MAX_SEARCH_RESULTS} results of a
+ * search, the iteration stops there and {@link #isTruncated()} tells whether results were left out.</p>
+ *
+ * <p>With {@link #withPrefetch(int)} the pages after the first one are fetched concurrently on the bulk executor
+ * of the SonarApi, while they are still returned in order.</p>
+ *
+ * <p>The iterator methods throw a RuntimeException wrapping the SonarApiException if a page cannot be fetched.</p>
+ *
+ * @param <T> the type of the items in the pages
+ */
+public class Pager<T> implements Iterator<List<T>>, Constants {
+
+    /** The maximum page size of most of the SonarQube web services. */
+    public static final int MAX_ITEMS_PER_PAGE = 500;
+
+    private final AbstractApi api;
+    private final Class<T> type;
+    private final String itemsField;
+    private final int itemsPerPage;
+    private final MultivaluedMap<String, String> queryParams;
+    private final Object[] pathArgs;
+
+    private List<T> currentItems;
+    private int currentPage;
+    private int totalItems = -1;
+    private boolean lastPage;
+
+    // True while the first page has been fetched to read the paging, but not returned by next()
+    private boolean firstPagePending;
+
+    // The pages being prefetched, in page order starting at currentPage + 1
+    private int prefetch;
+    private final Deque<Future<List<T>>> prefetched = new ArrayDeque<>();
+
+    /**
+     * Creates a Pager instance to access the API through the specified path and query params.
+     * No request is sent until the first page is needed.
+     *
+     * @param api the AbstractApi implementation to communicate through
+     * @param type the item class
+     * @param itemsField the name of the field of the response that holds the items
+     * @param itemsPerPage the number of items per page, from 1 to {@link #MAX_ITEMS_PER_PAGE}
+     * @param queryParams the query params, can be null
+     * @param pathArgs the path args
+     */
+    public Pager(AbstractApi api, Class<T> type, String itemsField, int itemsPerPage,
+            MultivaluedMap<String, String> queryParams, Object... pathArgs) {
+        this(api, type, itemsField, itemsPerPage, MAX_ITEMS_PER_PAGE, queryParams, pathArgs);
+    }
+
+    /**
+     * Creates a Pager instance for a web service with a maximum page size other than {@link #MAX_ITEMS_PER_PAGE}.
+     */
+    Pager(AbstractApi api, Class<T> type, String itemsField, int itemsPerPage, int maxItemsPerPage,
+            MultivaluedMap<String, String> queryParams, Object... pathArgs) {
+
+        if (itemsPerPage < 1 || itemsPerPage > maxItemsPerPage) {
+            throw new IllegalArgumentException("itemsPerPage must be between 1 and " + maxItemsPerPage);
+        }
+
+        this.api = api;
+        this.type = type;
+        this.itemsField = itemsField;
+        this.itemsPerPage = itemsPerPage;
+        this.queryParams = new SonarApiForm().asMap();
+        if (queryParams != null) {
+            this.queryParams.putAll(queryParams);
+        }
+
+        this.pathArgs = pathArgs;
+    }
+
+    /**
+     * Fetch the pages after the first one concurrently, at most parallelism pages at a time. The pages are still
+     * returned in order, and at most parallelism pages are held in memory besides the current one. Prefetching
+     * needs the total reported by the web service, without it the pages are fetched one at a time. Pages are not
+     * prefetched either when the Pager is used from a task of the bounded bulk executor of the SonarApi.
+     *
+     * @param parallelism the maximum number of pages fetched concurrently, 0 or 1 to fetch one page at a time
+     * @return this Pager instance
+     */
+    public Pager<T> withPrefetch(int parallelism) {
+
+        if (parallelism < 0) {
+            throw new IllegalArgumentException("parallelism must not be negative");
+        }
+
+        cancelPrefetch();
+        this.prefetch = (parallelism > 1 ? parallelism : 0);
+        return (this);
+    }
+
+    /**
+     * Get the items per page value.
+     *
+     * @return the items per page value
+     */
+    public int getItemsPerPage() {
+        return (itemsPerPage);
+    }
+
+    /**
+     * Get the current page, 0 until the first page has been fetched.
+     *
+     * @return the current page
+     */
+    public int getCurrentPage() {
+        return (currentPage);
+    }
+
+    /**
+     * Get the total number of items reported by the server, the first page is fetched if it has not been yet.
+     *
+     * @return the total number of items, or -1 if the web service does not report it
+     */
+    public int getTotalItems() {
+        ensureFirstPage();
+        return (totalItems);
+    }
+
+    /**
+     * Get the total number of pages that can be fetched, the first page is fetched if it has not been yet.
+     *
+     * @return the total number of pages that can be fetched, or -1 if the web service does not report the total
+     */
+    public int getTotalPages() {
+        ensureFirstPage();
+        return (totalItems < 0 ? -1 : Math.min((totalItems + itemsPerPage - 1) / itemsPerPage, getMaxPages()));
+    }
+
+    // SonarQube rejects pages that end past MAX_SEARCH_RESULTS
+    private int getMaxPages() {
+        return (MAX_SEARCH_RESULTS / itemsPerPage);
+    }
+
+    /**
+     * Returns true if the search matched more items than SonarQube lets a client page through,
+     * the first page is fetched if it has not been yet.
+     *
+     * @return true if items past {@link Constants#MAX_SEARCH_RESULTS} cannot be fetched, when the web service
+     * does not report the total this is only known once the last page that can be fetched has been reached
+     */
+    public boolean isTruncated() {
+
+        ensureFirstPage();
+        if (totalItems < 0) {
+            return (currentPage == getMaxPages() && !lastPage);
+        }
+
+        return (totalItems > getMaxPages() * itemsPerPage);
+    }
+
+    /**
+     * Returns the true if there are additional pages to iterate over, otherwise returns false.
+     *
+     * @return true if there are additional pages to iterate over, otherwise returns false
+     */
+    @Override
+    public boolean hasNext() {
+
+        if (firstPagePending || currentPage == 0) {
+            return (true);
+        } else if (lastPage) {
+            return (false);
+        }
+
+        return (currentPage < getMaxPages() &&
+            (totalItems < 0 ? currentItems.size() == itemsPerPage : currentPage * itemsPerPage < totalItems));
+    }
+
+    /**
+     * Returns the next List in the iteration containing the next page of objects.
+     *
+     * @return the next List in the iteration
+     * @throws NoSuchElementException if the iteration has no more elements
+     * @throws RuntimeException if a SonarApiException occurs, it is wrapped in the RuntimeException
+     */
+    @Override
+    public List<T> next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        if (firstPagePending) {
+            firstPagePending = false;
+            return (currentItems);
+        }
+
+        // Pages are not prefetched from a task of the bounded bulk executor, see SonarApi.isBulkThread()
+        if (prefetch > 0 && totalItems >= 0 && !api.isBulkThread()) {
+            return (nextPrefetched());
+        }
+
+        return (page(currentPage + 1));
+    }
+
+    private List<T> nextPrefetched() {
+
+        int lastPageNumber = getTotalPages();
+        int nextPageNumber = currentPage + prefetched.size() + 1;
+        while (prefetched.size() < prefetch && nextPageNumber <= lastPageNumber) {
+            int pageNumber = nextPageNumber++;
+            prefetched.addLast(api.getBulkExecutor().submit(() -> {
+                List<T> items = new ArrayList<>(itemsPerPage);
+                fetchPage(pageNumber, items::add);
+                return (items);
+            }));
+        }
+
+        List<T> items;
+        try {
+            items = prefetched.removeFirst().get();
+        } catch (InterruptedException e) {
+            cancelPrefetch();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(new SonarApiException(e));
+        } catch (ExecutionException e) {
+            cancelPrefetch();
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause instanceof SonarApiException ? cause : new SonarApiException((Exception) cause));
+        }
+
+        currentPage++;
+        currentItems = items;
+        lastPage = (currentPage >= lastPageNumber);
+        return (items);
+    }
+
+    // Cancels the pages that are being prefetched
+    private void cancelPrefetch() {
+        for (Future<List<T>> future : prefetched) {
+            future.cancel(true);
+        }
+
+        prefetched.clear();
+    }
+
+    /**
+     * Returns the specified page of the items, and makes it the current page.
+     *
+     * @param pageNumber the 1-based page to get
+     * @return a List of the items of the specified page
+     * @throws RuntimeException if a SonarApiException occurs, it is wrapped in the RuntimeException
+     */
+    public List<T> page(int pageNumber) {
+
+        if (pageNumber < 1 || pageNumber > getMaxPages()) {
+            throw new NoSuchElementException("Page " + pageNumber + " cannot be fetched");
+        }
+
+        cancelPrefetch();
+        List<T> items = new ArrayList<>(itemsPerPage);
+        Paging paging;
+        try {
+            paging = fetchPage(pageNumber, items::add);
+        } catch (SonarApiException e) {
+            throw new RuntimeException(e);
+        }
+
+        currentPage = pageNumber;
+        currentItems = items;
+        firstPagePending = false;
+        totalItems = (paging != null && paging.getTotal() != null ? paging.getTotal() : -1);
+        lastPage = (totalItems < 0 ? items.size() < itemsPerPage : pageNumber * itemsPerPage >= totalItems);
+        return (items);
+    }
+
+    /**
+     * Gets all the items from each page as a single List instance, up to {@link Constants#MAX_SEARCH_RESULTS}.
+     *
+     * @return all the items from each page as a single List instance
+     * @throws SonarApiException if any error occurs
+     */
+    public List<T> all() throws SonarApiException {
+
+        List<T> allItems = new ArrayList<>();
+        try {
+            while (hasNext()) {
+                allItems.addAll(next());
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof SonarApiException) {
+                throw (SonarApiException) e.getCause();
+            }
+            throw e;
+        }
+
+        return (allItems);
+    }
+
+    /**
+     * Builds and returns a Stream of the items that fetches the pages as the Stream reaches them,
+     * starting with the page that the next call of {@link #next()} would return. Closing the Stream
+     * cancels the pages that are being prefetched.
+     *
+     * @return a Stream of the items
+     */
+    public Stream<T> stream() {
+
+        Iterator<T> items = new Iterator<T>() {
+
+            private Iterator<T> pageItems = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!pageItems.hasNext()) {
+                    if (!Pager.this.hasNext()) {
+                        return (false);
+                    }
+
+                    pageItems = Pager.this.next().iterator();
+                }
+
+                return (true);
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return (pageItems.next());
+            }
+        };
+
+        return (StreamSupport.stream(Spliterators.spliteratorUnknownSize(items, Spliterator.ORDERED), false)
+            .onClose(this::cancelPrefetch));
+    }
+
+    // Fetches a page and streams its items to the consumer, without changing the state of this pager
+    Paging fetchPage(int pageNumber, Consumer<? super T> consumer) throws SonarApiException {
+
+        MultivaluedMap<String, String> pageParams = new SonarApiForm().asMap();
+        pageParams.putAll(queryParams);
+        pageParams.putSingle(PAGE_INDEX_PARAM, Integer.toString(pageNumber));
+        pageParams.putSingle(PAGE_SIZE_PARAM, Integer.toString(itemsPerPage));
+
+        Response response = api.get(Response.Status.OK, pageParams, pathArgs);
+        try (InputStream in = response.readEntity(InputStream.class)) {
+            return (api.getJacksonJson().readPage(in, itemsField, type, consumer));
+        } catch (IOException e) {
+            throw api.handle(e);
+        }
+    }
+
+    private void ensureFirstPage() {
+        if (currentPage == 0) {
+            page(1);
+            firstPagePending = true;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.utils.ISO8601;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Gets all the results of a SonarQube search, also when there are more than the
+ * {@link Constants#MAX_SEARCH_RESULTS} results a search can page through.</p>
+ *
+ * <p>The search is first split into one slice per value of each facet param added with {@link #withFacet(String, List)},
+ * then the slices that still have too many results are bisected on the half-open creation date range set with
+ * {@link #withDateRange(String, String, Date, Date)}, until every slice fits. The number of results of each slice is
+ * read with a one item page, the slices of a level are counted concurrently. The slices are then paged through
+ * concurrently and their results are merged into a single Stream, without duplicates if a key extractor is set.</p>
+ *
+ * <p>The results are not in any particular order. At most the page size times the parallelism results are buffered,
+ * a Stream that is not consumed to the end must be closed to stop the remaining work.</p>
+ *
+ * @param <T> the type of the results
+ */
+public class PartitionedSearch<T> {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    /** The default number of slices paged through concurrently. */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    // Marks the end of the results of a worker in the buffer
+    private static final Object END = new Object();
+
+    private final AbstractApi api;
+    private final Class<T> type;
+    private final String itemsField;
+    private final MultivaluedMap<String, String> queryParams;
+    private final Object[] pathArgs;
+
+    private final List<String> facetParams = new ArrayList<>();
+    private final List<List<String>> facetValues = new ArrayList<>();
+    private String afterParam;
+    private String beforeParam;
+    // The date range in epoch seconds, the precision of the date params of SonarQube
+    private long from;
+    private long to;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int pageSize = Pager.MAX_ITEMS_PER_PAGE;
+    private Function<? super T, ?> keyExtractor;
+    private final AtomicInteger truncatedSlices = new AtomicInteger();
+
+    /**
+     * Creates a PartitionedSearch instance for the search at the specified path with the specified query params.
+     *
+     * @param api the AbstractApi implementation to communicate through
+     * @param type the result class
+     * @param itemsField the name of the field of the response that holds the results
+     * @param queryParams the query params of the search, can be null
+     * @param pathArgs the path args
+     */
+    public PartitionedSearch(AbstractApi api, Class<T> type, String itemsField,
+            MultivaluedMap<String, String> queryParams, Object... pathArgs) {
+
+        this.api = api;
+        this.type = type;
+        this.itemsField = itemsField;
+        this.queryParams = copy(queryParams);
+
+        this.pathArgs = pathArgs;
+    }
+
+    /**
+     * Split the search by the values of a multi-valued param, for example "severities" or "types". The values
+     * must be disjoint and together cover all the results the search should return.
+     *
+     * @param param the name of the param
+     * @param values the values of the param, one slice is searched per value
+     * @return this PartitionedSearch instance
+     */
+    public PartitionedSearch<T> withFacet(String param, List<String> values) {
+
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException("values must not be empty");
+        }
+
+        facetParams.add(param);
+        facetValues.add(new ArrayList<>(values));
+        return (this);
+    }
+
+    /**
+     * Split the search by creation date when a slice has too many results. The range is half-open, afterParam
+     * is inclusive and beforeParam exclusive, which is how SonarQube treats createdAfter and createdBefore.
+     * SonarQube reads these params with a precision of one second, so the range is widened to whole seconds.
+     *
+     * @param afterParam the name of the inclusive lower bound param, for example "createdAfter"
+     * @param beforeParam the name of the exclusive upper bound param, for example "createdBefore"
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return this PartitionedSearch instance
+     */
+    public PartitionedSearch<T> withDateRange(String afterParam, String beforeParam, Date from, Date to) {
+
+        if (!from.before(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        this.afterParam = afterParam;
+        this.beforeParam = beforeParam;
+        this.from = Math.floorDiv(from.getTime(), 1000L);
+        this.to = Math.floorDiv(to.getTime() + 999L, 1000L);
+        return (this);
+    }
+
+    /**
+     * Sets the number of slices that are paged through concurrently.
+     *
+     * @param parallelism the number of slices that are paged through concurrently
+     * @return this PartitionedSearch instance
+     */
+    public PartitionedSearch<T> withParallelism(int parallelism) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+
+        this.parallelism = parallelism;
+        return (this);
+    }
+
+    /**
+     * Sets the number of results per page.
+     *
+     * @param pageSize the number of results per page, from 1 to {@link Pager#MAX_ITEMS_PER_PAGE}
+     * @return this PartitionedSearch instance
+     */
+    public PartitionedSearch<T> withPageSize(int pageSize) {
+
+        if (pageSize < 1 || pageSize > Pager.MAX_ITEMS_PER_PAGE) {
+            throw new IllegalArgumentException("pageSize must be between 1 and " + Pager.MAX_ITEMS_PER_PAGE);
+        }
+
+        this.pageSize = pageSize;
+        return (this);
+    }
+
+    /**
+     * Drops the results with a key that has already been returned, which happens when a result moves
+     * to another slice while the search is running. The keys of all returned results are kept in memory.
+     *
+     * @param keyExtractor the function that returns the key of a result
+     * @return this PartitionedSearch instance
+     */
+    public PartitionedSearch<T> withKey(Function<? super T, ?> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        return (this);
+    }
+
+    /**
+     * Get the number of slices that still had too many results after all the possible splits,
+     * the results of these slices past {@link Constants#MAX_SEARCH_RESULTS} are missing from the Stream.
+     *
+     * @return the number of truncated slices of the last search
+     */
+    public int getTruncatedSlices() {
+        return (truncatedSlices.get());
+    }
+
+    /**
+     * Splits the search into slices that each have fewer results than SonarQube can page through.
+     *
+     * @return the slices of the search
+     * @throws SonarApiException if any error occurs
+     */
+    List<Slice> plan() throws SonarApiException {
+
+        truncatedSlices.set(0);
+        int maxResults = (Constants.MAX_SEARCH_RESULTS / pageSize) * pageSize;
+
+        List<Slice> slices = new ArrayList<>();
+        List<Slice> frontier = Collections.singletonList(new Slice(queryParams, 0, from, to));
+        while (!frontier.isEmpty()) {
+
+            List<Integer> totals = api.invokeAll(frontier, Slice::count);
+            List<Slice> next = new ArrayList<>();
+            for (int i = 0; i < frontier.size(); i++) {
+
+                Slice slice = frontier.get(i);
+                int total = totals.get(i);
+                if (total == 0) {
+                    continue;
+                } else if (total <= maxResults) {
+                    slices.add(slice);
+                } else if (slice.facet < facetParams.size()) {
+                    for (String value : facetValues.get(slice.facet)) {
+                        MultivaluedMap<String, String> params = copy(slice.params);
+                        params.putSingle(facetParams.get(slice.facet), value);
+                        next.add(new Slice(params, slice.facet + 1, slice.from, slice.to));
+                    }
+                } else if (afterParam != null && slice.splitPoint() > slice.from && slice.splitPoint() < slice.to) {
+                    long middle = slice.splitPoint();
+                    next.add(new Slice(slice.params, slice.facet, slice.from, middle));
+                    next.add(new Slice(slice.params, slice.facet, middle, slice.to));
+                } else {
+                    truncatedSlices.incrementAndGet();
+                    LOGGER.warning("A slice of the search has " + total + " results and cannot be split further, only the first " +
+                        maxResults + " are returned: " + slice.queryParams());
+                    slices.add(slice);
+                }
+            }
+
+            frontier = next;
+        }
+
+        return (slices);
+    }
+
+    /**
+     * Plans the slices and returns a Stream of the results of all the slices, that are paged through concurrently
+     * on the bulk executor of the SonarApi, or sequentially when called from a task of the bounded bulk executor.
+     * The slices are planned when this method is called.
+     *
+     * @return a Stream of all the results of the search
+     * @throws SonarApiException if the slices cannot be planned
+     */
+    public Stream<T> stream() throws SonarApiException {
+
+        // From a task of the bounded bulk executor the slices are paged through one after the other on the
+        // calling thread, workers queued on the same pool could wait for the thread that waits for them
+        if (api.isBulkThread()) {
+            Set<Object> keys = (keyExtractor != null ? new HashSet<>() : null);
+            return (plan().stream()
+                .flatMap(slice -> new Pager<>(api, type, itemsField, pageSize, slice.queryParams(), pathArgs).stream())
+                .filter(item -> keys == null || keys.add(keyExtractor.apply(item))));
+        }
+
+        Queue<Slice> slices = new ConcurrentLinkedQueue<>(plan());
+        int workers = Math.max(1, Math.min(parallelism, slices.size()));
+        BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(pageSize * workers + workers);
+        ResultIterator iterator = new ResultIterator(buffer, workers);
+
+        for (int i = 0; i < workers; i++) {
+            api.getBulkExecutor().execute(() -> drain(slices, buffer, iterator));
+        }
+
+        return (StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+            .onClose(iterator::close));
+    }
+
+    // Runs on the bulk executor, pages through slices until there are none left or the Stream is closed
+    private void drain(Queue<Slice> slices, BlockingQueue<Object> buffer, ResultIterator iterator) {
+
+        Object last = END;
+        try {
+            Slice slice;
+            while (!iterator.closed && (slice = slices.poll()) != null) {
+                Pager<T> pager = new Pager<>(api, type, itemsField, pageSize, slice.queryParams(), pathArgs);
+                while (!iterator.closed && pager.hasNext()) {
+                    for (T item : pager.next()) {
+                        if (!put(buffer, item, iterator)) {
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            last = (e.getCause() instanceof SonarApiException ? e.getCause() : new SonarApiException(e));
+        } finally {
+            put(buffer, last, iterator);
+        }
+    }
+
+    private boolean put(BlockingQueue<Object> buffer, Object item, ResultIterator iterator) {
+
+        try {
+            while (!buffer.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (iterator.closed) {
+                    return (false);
+                }
+            }
+
+            return (true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return (false);
+        }
+    }
+
+    // Copies the value lists too, putSingle() on a map filled with putAll() changes the lists of the source map
+    private static MultivaluedMap<String, String> copy(MultivaluedMap<String, String> params) {
+
+        MultivaluedMap<String, String> copy = new SonarApiForm().asMap();
+        if (params != null) {
+            params.forEach((name, values) -> copy.put(name, new ArrayList<>(values)));
+        }
+
+        return (copy);
+    }
+
+    /**
+     * A part of the search, with the facet values and the date range, in epoch seconds, it is limited to.
+     */
+    class Slice {
+
+        private final MultivaluedMap<String, String> params;
+        private final int facet;
+        private final long from;
+        private final long to;
+
+        Slice(MultivaluedMap<String, String> params, int facet, long from, long to) {
+            this.params = params;
+            this.facet = facet;
+            this.from = from;
+            this.to = to;
+        }
+
+        // The second at which this slice is split by date, a slice of one second has no split point between its bounds
+        long splitPoint() {
+            return (from + (to - from) / 2);
+        }
+
+        MultivaluedMap<String, String> queryParams() {
+
+            MultivaluedMap<String, String> sliceParams = copy(params);
+            if (afterParam != null) {
+                sliceParams.putSingle(afterParam, ISO8601.toOffsetString(new Date(from * 1000L)));
+                sliceParams.putSingle(beforeParam, ISO8601.toOffsetString(new Date(to * 1000L)));
+            }
+
+            return (sliceParams);
+        }
+
+        int count() throws SonarApiException {
+
+            Pager<T> pager = new Pager<>(api, type, itemsField, 1, queryParams(), pathArgs);
+            try {
+                return (Math.max(pager.getTotalItems(), 0));
+            } catch (RuntimeException e) {
+                if (e.getCause() instanceof SonarApiException) {
+                    throw (SonarApiException) e.getCause();
+                }
+
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Takes the results of the workers from the buffer, until every worker has ended.
+     */
+    private class ResultIterator implements Iterator<T> {
+
+        private final BlockingQueue<Object> buffer;
+        private final Set<Object> keys = (keyExtractor != null ? ConcurrentHashMap.newKeySet() : null);
+        private int running;
+        private volatile boolean closed;
+        private T next;
+
+        ResultIterator(BlockingQueue<Object> buffer, int workers) {
+            this.buffer = buffer;
+            this.running = workers;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+
+            while (next == null && running > 0) {
+
+                Object item;
+                try {
+                    item = buffer.take();
+                } catch (InterruptedException e) {
+                    close();
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(new SonarApiException(e));
+                }
+
+                if (item == END) {
+                    running--;
+                } else if (item instanceof SonarApiException) {
+                    close();
+                    throw new RuntimeException((SonarApiException) item);
+                } else if (keys == null || keys.add(keyExtractor.apply((T) item))) {
+                    next = (T) item;
+                }
+            }
+
+            return (next != null);
+        }
+
+        @Override
+        public T next() {
+
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T item = next;
+            next = null;
+            return (item);
+        }
+
+        void close() {
+            closed = true;
+            running = 0;
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.ProjectStatus;
+import com.github.sonarnext.api.models.ProjectStatusQuery;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Gets the quality gate statuses of many projects, branches, pull requests or analyses concurrently.
+ * At most maxConcurrency requests are in flight at a time, the other lookups are queued without blocking
+ * the caller. A lookup of a status that is already being fetched shares the request in flight instead of
+ * making another one, the status is not cached once the request has completed.</p>
+ *
+ * <p>The requests are asynchronous requests of the SonarApi, so they also count against its limit set with
+ * {@link SonarApi#setMaxAsyncRequests(int)}, which is shared with the other asynchronous requests. The effective
+ * limit is the lower of the two, a maxConcurrency above the limit of the SonarApi only queues more lookups there.</p>
+ *
+ * <p>Instances are obtained from {@link QualityGatesApi#getEvaluator()} or
+ * {@link QualityGatesApi#createEvaluator(int)} and are thread safe.</p>
+ */
+public class QualityGateEvaluator {
+
+    /** The default maximum number of requests in flight. */
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private final QualityGatesApi api;
+    private final AsyncRequestLimiter limiter;
+    private final ConcurrentMap<ProjectStatusQuery, CompletableFuture<ProjectStatus.Status>> inFlight = new ConcurrentHashMap<>();
+
+    QualityGateEvaluator(QualityGatesApi api, int maxConcurrency) {
+        this.api = api;
+        this.limiter = new AsyncRequestLimiter(maxConcurrency);
+    }
+
+    /**
+     * Get the number of distinct statuses that are being fetched or are waiting for a request slot.
+     *
+     * @return the number of distinct lookups in progress
+     */
+    public int getInFlight() {
+        return (inFlight.size());
+    }
+
+    /**
+     * Get a quality gate status asynchronously.
+     *
+     * @param query the ProjectStatusQuery identifying the status to get
+     * @return a CompletableFuture that completes with the status, or exceptionally with a SonarApiException
+     */
+    public CompletableFuture<ProjectStatus.Status> evaluate(ProjectStatusQuery query) {
+
+        if (query == null) {
+            throw new RuntimeException("query cannot be null");
+        }
+
+        CompletableFuture<ProjectStatus.Status> lookup = new CompletableFuture<>();
+        CompletableFuture<ProjectStatus.Status> existing = inFlight.putIfAbsent(query, lookup);
+        if (existing == null) {
+
+            // A lookup failing synchronously completes from within submit(), the limiter then leaves the
+            // dispatch of the next lookup to its dispatching loop instead of nesting it in this call
+            limiter.submit(() -> {
+                CompletableFuture<ProjectStatus> request;
+                try {
+                    request = api.getProjectStatusAsync(query);
+                } catch (RuntimeException e) {
+                    request = new CompletableFuture<>();
+                    request.completeExceptionally(e);
+                }
+
+                request.whenComplete((status, thrown) -> {
+
+                    limiter.release();
+
+                    // Removed before completing, a lookup made from a completion handler gets a fresh status
+                    inFlight.remove(query, lookup);
+                    if (thrown == null) {
+                        lookup.complete(status.getProjectStatus());
+                    } else {
+                        lookup.completeExceptionally(thrown);
+                    }
+                });
+            });
+        }
+
+        // A dependent future, so that a caller cancelling it does not cancel the lookup shared with other callers
+        CompletableFuture<ProjectStatus.Status> shared = (existing != null ? existing : lookup);
+        return (shared.thenApply(status -> status));
+    }
+
+    /**
+     * Get the quality gate statuses of many projects, branches, pull requests or analyses. Each distinct query
+     * is looked up once and the results are returned in the order the lookups complete, a failed lookup is
+     * returned as a Result holding the SonarApiException instead of ending the Stream.
+     *
+     * @param queries the ProjectStatusQuery instances identifying the statuses to get
+     * @return a Stream of a Result per distinct query, in completion order
+     */
+    public Stream<Result> evaluateAll(Collection<ProjectStatusQuery> queries) {
+
+        Set<ProjectStatusQuery> distinct = new LinkedHashSet<>(queries);
+        BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+        for (ProjectStatusQuery query : distinct) {
+            evaluate(query).whenComplete((status, thrown) -> results.add(new Result(query, status, thrown)));
+        }
+
+        Iterator<Result> iterator = new Iterator<Result>() {
+
+            private int remaining = distinct.size();
+
+            @Override
+            public boolean hasNext() {
+                return (remaining > 0);
+            }
+
+            @Override
+            public Result next() {
+
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+
+                try {
+                    Result result = results.take();
+                    remaining--;
+                    return (result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(new SonarApiException(e));
+                }
+            }
+        };
+
+        return (StreamSupport.stream(Spliterators.spliterator(iterator, distinct.size(),
+            Spliterator.SIZED | Spliterator.NONNULL | Spliterator.DISTINCT), false));
+    }
+
+    /**
+     * Get the quality gate statuses of the main branch of many projects, see {@link #evaluateAll(Collection)}.
+     *
+     * @param projectKeys the keys of the projects
+     * @return a Stream of a Result per distinct project, in completion order
+     */
+    public Stream<Result> evaluateProjects(Collection<String> projectKeys) {
+
+        List<ProjectStatusQuery> queries = new ArrayList<>(projectKeys.size());
+        for (String projectKey : projectKeys) {
+            queries.add(ProjectStatusQuery.forProject(projectKey));
+        }
+
+        return (evaluateAll(queries));
+    }
+
+    /**
+     * The outcome of the lookup of a quality gate status.
+     */
+    public static class Result {
+
+        private final ProjectStatusQuery query;
+        private final ProjectStatus.Status status;
+        private final SonarApiException exception;
+
+        Result(ProjectStatusQuery query, ProjectStatus.Status status, Throwable thrown) {
+
+            this.query = query;
+            this.status = status;
+            if (thrown == null) {
+                this.exception = null;
+            } else {
+                Throwable cause = (thrown instanceof CompletionException && thrown.getCause() != null ?
+                    thrown.getCause() : thrown);
+                this.exception = (cause instanceof SonarApiException ? (SonarApiException) cause :
+                    new SonarApiException(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause)));
+            }
+        }
+
+        public ProjectStatusQuery getQuery() {
+            return (query);
+        }
+
+        /**
+         * @return the quality gate status, or null if the lookup failed
+         */
+        public ProjectStatus.Status getStatus() {
+            return (status);
+        }
+
+        /**
+         * @return the SonarApiException the lookup failed with, or null if it succeeded
+         */
+        public SonarApiException getException() {
+            return (exception);
+        }
+
+        /**
+         * @return true if the lookup succeeded and the quality gate passed
+         */
+        public boolean isPassed() {
+            return (status != null && status.isPassed());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.ProjectStatus;
+import com.github.sonarnext.api.models.ProjectStatusQuery;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class implements the client side API for the SonarQube quality gates web services.
+ */
+public class QualityGatesApi extends AbstractApi {
+
+    private QualityGateEvaluator evaluator;
+
+    public QualityGatesApi(SonarApi sonarApi) {
+        super(sonarApi);
+    }
+
+    /**
+     * Get the quality gate status of an analysis, project, branch or pull request.
+     *
+     * @param query the ProjectStatusQuery identifying the status to get
+     * @return the quality gate status
+     * @throws SonarApiException if any exception occurs
+     */
+    public ProjectStatus.Status getProjectStatus(ProjectStatusQuery query) throws SonarApiException {
+
+        if (query == null) {
+            throw new RuntimeException("query cannot be null");
+        }
+
+        Response response = get(Response.Status.OK, query.getQueryParams().asMap(), "api/qualitygates/project_status");
+        return (response.readEntity(ProjectStatus.class).getProjectStatus());
+    }
+
+    /**
+     * Get the quality gate status of the main branch of a project.
+     *
+     * @param projectKey the key of the project
+     * @return the quality gate status
+     * @throws SonarApiException if any exception occurs
+     */
+    public ProjectStatus.Status getProjectStatus(String projectKey) throws SonarApiException {
+        return (getProjectStatus(ProjectStatusQuery.forProject(projectKey)));
+    }
+
+    /**
+     * Get the shared QualityGateEvaluator, which gets the statuses of many projects or analyses concurrently,
+     * with at most {@link QualityGateEvaluator#DEFAULT_MAX_CONCURRENCY} requests in flight.
+     *
+     * @return the shared QualityGateEvaluator
+     */
+    public synchronized QualityGateEvaluator getEvaluator() {
+
+        if (evaluator == null) {
+            evaluator = new QualityGateEvaluator(this, QualityGateEvaluator.DEFAULT_MAX_CONCURRENCY);
+        }
+
+        return (evaluator);
+    }
+
+    /**
+     * Create a QualityGateEvaluator with its own limit on the number of requests in flight. Concurrent lookups
+     * of the same status are only shared within an evaluator. The requests also count against the limit set with
+     * {@link SonarApi#setMaxAsyncRequests(int)}, the lower of the two limits applies.
+     *
+     * @param maxConcurrency the maximum number of requests in flight, must be greater than 0
+     * @return a new QualityGateEvaluator
+     */
+    public QualityGateEvaluator createEvaluator(int maxConcurrency) {
+        return (new QualityGateEvaluator(this, maxConcurrency));
+    }
+
+    CompletableFuture<ProjectStatus> getProjectStatusAsync(ProjectStatusQuery query) {
+        return (getAsync(Response.Status.OK, query.getQueryParams().asMap(), ProjectStatus.class, "api/qualitygates/project_status"));
+    }
+}
@@ -1,8 +1,29 @@
 package com.github.sonarnext.api;
 
+import com.github.sonarnext.api.models.CeActivityStatus;
+import com.github.sonarnext.api.models.CeInfo;
+import com.github.sonarnext.api.models.CeTask;
+import com.github.sonarnext.api.models.CeWorkerCount;
+import com.github.sonarnext.api.models.Component;
+import com.github.sonarnext.api.models.Facet;
+import com.github.sonarnext.api.models.Issue;
+import com.github.sonarnext.api.models.IssueSearchResult;
+import com.github.sonarnext.api.models.Paging;
+import com.github.sonarnext.api.models.ProjectStatus;
+import com.github.sonarnext.api.utils.CompressionStats;
+import com.github.sonarnext.api.utils.ConnectionPoolStats;
+import com.github.sonarnext.api.utils.JavaPlatform;
 import com.github.sonarnext.api.utils.MaskingLoggingFilter;
+import com.github.sonarnext.api.utils.ResponseCompressionFilter;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,17 +34,51 @@ public class SonarApi implements AutoCloseable {
 
     public static final int DEFAULT_PER_PAGE = 20;
 
+    /** The default number of platform threads used for bulk calls when virtual threads are not in use. */
+    public static final int DEFAULT_BULK_THREADS = 32;
+
+
+    // The model classes whose JSON readers and writers are built when a SonarApi instance is created
+    static final Class<?>[] MODEL_TYPES = {
+        CeTask.class,
+        CeTask.Task.class,
+        CeActivityStatus.class,
+        CeWorkerCount.class,
+        CeInfo.class,
+        Paging.class,
+        Issue.class,
+        IssueSearchResult.class,
+        Facet.class,
+        ProjectStatus.class,
+        Component.class
+    };
 
     // Used to keep track of SonarApiExceptions on calls that return Optional<?>
     private static final Map<Integer, SonarApiException> optionalExceptionMap =
         Collections.synchronizedMap(new WeakHashMap<>());
 
+    // The SonarApi whose platform bulk executor runs the current thread, see isBulkThread()
+    private static final ThreadLocal<SonarApi> bulkThreadOwner = new ThreadLocal<>();
+
     SonarApiClient apiClient;
     private String gitLabServerUrl;
     private Map<String, Object> clientConfigProperties;
     private int defaultPerPage = DEFAULT_PER_PAGE;
+    private boolean virtualThreadsEnabled;
+    private int bulkThreads = DEFAULT_BULK_THREADS;
+    private ExecutorService bulkExecutor;
+    private ScheduledExecutorService scheduler;
+    private boolean usingVirtualThreads;
+    private boolean bytecodeAccessorsEnabled;
 
     CeApi ceApi;
+    AsyncCeApi asyncCeApi;
+    CeTaskWatcher ceTaskWatcher;
+    IssuesApi issuesApi;
+    MeasuresApi measuresApi;
+    QualityGatesApi qualityGatesApi;
+    SourcesApi sourcesApi;
+    ComponentsApi componentsApi;
 
     /**
      * @return Logger
@@ -44,11 +99,13 @@ public class SonarApi implements AutoCloseable {
         this.gitLabServerUrl = hostUrl;
         this.clientConfigProperties = clientConfigProperties;
         apiClient = new SonarApiClient(hostUrl, secretToken, clientConfigProperties);
+        apiClient.getJacksonJson().warmUp(MODEL_TYPES);
     }
 
 
     /**
      * Create a new GitLabApi instance that is logically a duplicate of this instance, with the exception of sudo state.
+     * The bulk execution, JSON and transport settings are copied, the compression listener is not.
      *
      * @return a new GitLabApi instance that is logically a duplicate of this instance, with the exception of sudo state.
      */
@@ -61,7 +118,17 @@ public class SonarApi implements AutoCloseable {
             gitLabApi.setIgnoreCertificateErrors(true);
         }
 
+        gitLabApi.apiClient.copySettings(apiClient);
         gitLabApi.defaultPerPage = this.defaultPerPage;
+        gitLabApi.bulkThreads = this.bulkThreads;
+        if (virtualThreadsEnabled) {
+            gitLabApi.enableVirtualThreads();
+        }
+
+        if (bytecodeAccessorsEnabled) {
+            gitLabApi.enableBytecodeAccessors();
+        }
+
         return (gitLabApi);
     }
 
@@ -73,6 +140,24 @@ public class SonarApi implements AutoCloseable {
         if (apiClient != null) {
             apiClient.close();
         }
+
+        synchronized (this) {
+            if (ceTaskWatcher != null) {
+                ceTaskWatcher.close();
+                ceTaskWatcher = null;
+            }
+
+            if (bulkExecutor != null) {
+                bulkExecutor.shutdown();
+                bulkExecutor = null;
+                usingVirtualThreads = false;
+            }
+
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
     }
 
     public CeApi getCeApi() {
@@ -84,6 +169,75 @@ public class SonarApi implements AutoCloseable {
         }
     }
 
+    /**
+     * Get the shared CeTaskWatcher, which waits for any number of CE tasks with a single poller
+     * using the default poll interval.
+     *
+     * @return the shared CeTaskWatcher
+     */
+    public CeTaskWatcher getCeTaskWatcher() {
+        synchronized (this) {
+            if (ceTaskWatcher == null) {
+                ceTaskWatcher = new CeTaskWatcher(this);
+            }
+            return ceTaskWatcher;
+        }
+    }
+
+    public AsyncCeApi getAsyncCeApi() {
+        synchronized (this) {
+            if (asyncCeApi == null) {
+                asyncCeApi = new AsyncCeApi(this);
+            }
+            return asyncCeApi;
+        }
+    }
+
+    public IssuesApi getIssuesApi() {
+        synchronized (this) {
+            if (issuesApi == null) {
+                issuesApi = new IssuesApi(this);
+            }
+            return issuesApi;
+        }
+    }
+
+    public MeasuresApi getMeasuresApi() {
+        synchronized (this) {
+            if (measuresApi == null) {
+                measuresApi = new MeasuresApi(this);
+            }
+            return measuresApi;
+        }
+    }
+
+    public QualityGatesApi getQualityGatesApi() {
+        synchronized (this) {
+            if (qualityGatesApi == null) {
+                qualityGatesApi = new QualityGatesApi(this);
+            }
+            return qualityGatesApi;
+        }
+    }
+
+    public SourcesApi getSourcesApi() {
+        synchronized (this) {
+            if (sourcesApi == null) {
+                sourcesApi = new SourcesApi(this);
+            }
+            return sourcesApi;
+        }
+    }
+
+    public ComponentsApi getComponentsApi() {
+        synchronized (this) {
+            if (componentsApi == null) {
+                componentsApi = new ComponentsApi(this);
+            }
+            return componentsApi;
+        }
+    }
+
     /**
      * Sets the per request connect and read timeout.
      *
@@ -106,6 +260,385 @@ public class SonarApi implements AutoCloseable {
         return (this);
     }
 
+    /**
+     * Sets the Jersey ConnectorProvider used to send requests, replacing the built-in transports. On Java 11
+     * and later, {@link com.github.sonarnext.api.transport.JavaHttpClientConnectorProvider} sends requests with
+     * the JDK HttpClient over HTTP/2.
+     *
+     * @param connectorProvider the ConnectorProvider to use, or null to use the built-in transports
+     */
+    public void setConnectorProvider(ConnectorProvider connectorProvider) {
+        apiClient.setConnectorProvider(connectorProvider);
+    }
+
+    /**
+     * Fluent method that sets the Jersey ConnectorProvider used to send requests.
+     *
+     * @param connectorProvider the ConnectorProvider to use, or null to use the built-in transports
+     * @return this SonarApi instance
+     * @see #setConnectorProvider(ConnectorProvider)
+     */
+    public SonarApi withConnectorProvider(ConnectorProvider connectorProvider) {
+        apiClient.setConnectorProvider(connectorProvider);
+        return (this);
+    }
+
+    /**
+     * Enables or disables the pooled, keep-alive transport. The pooled transport is enabled by default,
+     * when disabled the default Jersey connector is used.
+     *
+     * @param connectionPoolEnabled if true requests are sent over a pool of persistent connections
+     */
+    public void setConnectionPoolEnabled(boolean connectionPoolEnabled) {
+        apiClient.setConnectionPoolEnabled(connectionPoolEnabled);
+    }
+
+    /**
+     * Fluent method that enables or disables the pooled, keep-alive transport.
+     *
+     * @param connectionPoolEnabled if true requests are sent over a pool of persistent connections
+     * @return this SonarApi instance
+     */
+    public SonarApi withConnectionPoolEnabled(boolean connectionPoolEnabled) {
+        apiClient.setConnectionPoolEnabled(connectionPoolEnabled);
+        return (this);
+    }
+
+    /**
+     * Sets the size limits of the connection pool.
+     *
+     * @param maxConnections the maximum number of connections in the pool
+     * @param maxConnectionsPerRoute the maximum number of connections to a single host
+     */
+    public void setConnectionPoolSize(int maxConnections, int maxConnectionsPerRoute) {
+        apiClient.setConnectionPoolSize(maxConnections, maxConnectionsPerRoute);
+    }
+
+    /**
+     * Fluent method that sets the size limits of the connection pool.
+     *
+     * @param maxConnections the maximum number of connections in the pool
+     * @param maxConnectionsPerRoute the maximum number of connections to a single host
+     * @return this SonarApi instance
+     */
+    public SonarApi withConnectionPoolSize(int maxConnections, int maxConnectionsPerRoute) {
+        apiClient.setConnectionPoolSize(maxConnections, maxConnectionsPerRoute);
+        return (this);
+    }
+
+    /**
+     * Sets the idle eviction and keep-alive timeouts of the connection pool.
+     *
+     * @param idleTimeout the time in milliseconds after which an idle connection is evicted, can be null to use default
+     * @param keepAlive the time in milliseconds a connection is kept alive when the server does not send
+     * a Keep-Alive header, can be null to use default
+     */
+    public void setConnectionPoolTimeouts(Long idleTimeout, Long keepAlive) {
+        apiClient.setConnectionPoolTimeouts(idleTimeout, keepAlive);
+    }
+
+    /**
+     * Fluent method that sets the idle eviction and keep-alive timeouts of the connection pool.
+     *
+     * @param idleTimeout the time in milliseconds after which an idle connection is evicted, can be null to use default
+     * @param keepAlive the time in milliseconds a connection is kept alive when the server does not send
+     * a Keep-Alive header, can be null to use default
+     * @return this SonarApi instance
+     */
+    public SonarApi withConnectionPoolTimeouts(Long idleTimeout, Long keepAlive) {
+        apiClient.setConnectionPoolTimeouts(idleTimeout, keepAlive);
+        return (this);
+    }
+
+    /**
+     * Enable the high-throughput JSON mode, which reads and writes the model classes through generated accessors
+     * instead of reflection. This requires jackson-module-blackbird (Java 11 and later) or jackson-module-afterburner
+     * on the classpath, when neither is available a warning is logged and the reflective mode is kept.
+     *
+     * @return true if the high-throughput JSON mode is enabled
+     */
+    public boolean enableBytecodeAccessors() {
+        synchronized (this) {
+            String moduleName = apiClient.getJacksonJson().enableBytecodeAccessors();
+            if (moduleName == null) {
+                LOGGER.warning("Neither jackson-module-blackbird nor jackson-module-afterburner is on the classpath");
+                return (false);
+            }
+
+            apiClient.getJacksonJson().warmUp(MODEL_TYPES);
+            bytecodeAccessorsEnabled = true;
+            return (true);
+        }
+    }
+
+    /**
+     * Fluent method that enables the high-throughput JSON mode.
+     *
+     * @return this SonarApi instance
+     * @see #enableBytecodeAccessors()
+     */
+    public SonarApi withBytecodeAccessors() {
+        enableBytecodeAccessors();
+        return (this);
+    }
+
+    /**
+     * Returns true if the model classes are read and written through generated accessors, otherwise returns false.
+     *
+     * @return true if the high-throughput JSON mode is enabled
+     */
+    public boolean isUsingBytecodeAccessors() {
+        synchronized (this) {
+            return (bytecodeAccessorsEnabled);
+        }
+    }
+
+    /**
+     * Run bulk calls, and the completion of asynchronous calls, on a virtual-thread-per-task executor
+     * when the JVM supports virtual threads. On older JVMs a bounded pool of platform threads is used,
+     * see {@link #setBulkThreads(int)}.
+     */
+    public void enableVirtualThreads() {
+        synchronized (this) {
+            virtualThreadsEnabled = true;
+            resetBulkExecutor();
+        }
+    }
+
+    /**
+     * Fluent method that enables the virtual thread execution mode.
+     *
+     * @return this SonarApi instance
+     * @see #enableVirtualThreads()
+     */
+    public SonarApi withVirtualThreads() {
+        enableVirtualThreads();
+        return (this);
+    }
+
+    /**
+     * Returns true if bulk calls are running on virtual threads, otherwise returns false.
+     *
+     * @return true if bulk calls are running on virtual threads
+     */
+    public boolean isUsingVirtualThreads() {
+        synchronized (this) {
+            return (virtualThreadsEnabled && bulkExecutor != null && usingVirtualThreads);
+        }
+    }
+
+    /**
+     * Sets the number of platform threads used for bulk calls when virtual threads are disabled
+     * or not supported by the JVM.
+     *
+     * @param bulkThreads the number of platform threads used for bulk calls
+     */
+    public void setBulkThreads(int bulkThreads) {
+
+        if (bulkThreads < 1) {
+            throw new IllegalArgumentException("bulkThreads must be greater than 0");
+        }
+
+        synchronized (this) {
+            this.bulkThreads = bulkThreads;
+            resetBulkExecutor();
+        }
+    }
+
+    /**
+     * Get the executor used to run bulk calls, the executor is created on first use.
+     *
+     * @return the executor used to run bulk calls
+     */
+    ExecutorService getBulkExecutor() {
+        synchronized (this) {
+
+            if (bulkExecutor == null) {
+
+                if (virtualThreadsEnabled) {
+                    bulkExecutor = JavaPlatform.newVirtualThreadPerTaskExecutor();
+                    if (bulkExecutor != null) {
+                        usingVirtualThreads = true;
+                        apiClient.setAsyncExecutor(bulkExecutor);
+                        return (bulkExecutor);
+                    }
+
+                    LOGGER.fine("Virtual threads are not supported by this JVM, using a pool of platform threads");
+                }
+
+                ThreadFactory threadFactory = new DaemonThreadFactory("sonarqube-api-bulk-");
+                bulkExecutor = Executors.newFixedThreadPool(bulkThreads, runnable -> threadFactory.newThread(() -> {
+                    bulkThreadOwner.set(this);
+                    runnable.run();
+                }));
+            }
+
+            return (bulkExecutor);
+        }
+    }
+
+    /**
+     * Returns true if the current thread is a thread of the platform bulk executor of this instance. Bulk work
+     * started from such a thread must run on the calling thread: waiting on the bounded pool for work queued
+     * behind the task that waits can take every thread of the pool and never complete. Virtual threads are
+     * not bounded, so work started from a virtual thread can still be submitted to the bulk executor.
+     *
+     * @return true if the current thread is a thread of the platform bulk executor of this instance
+     */
+    boolean isBulkThread() {
+        return (bulkThreadOwner.get() == this);
+    }
+
+    /**
+     * Replaces the bulk executor so it is recreated with the current settings. The replaced executor is
+     * shut down once the new one is in place, the tasks already submitted to it still run to completion.
+     */
+    private void resetBulkExecutor() {
+
+        ExecutorService retiredExecutor = bulkExecutor;
+        bulkExecutor = null;
+        usingVirtualThreads = false;
+        if (virtualThreadsEnabled) {
+            getBulkExecutor();
+        }
+
+        // A new virtual thread executor is already the async executor, the client is only rebuilt once
+        if (!usingVirtualThreads) {
+            apiClient.setAsyncExecutor(null);
+        }
+
+        if (retiredExecutor != null) {
+            retiredExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Get the executor used to schedule delayed work such as polling, the executor is created on first use.
+     * The scheduled work must not block, it only starts asynchronous calls.
+     *
+     * @return the executor used to schedule delayed work
+     */
+    ScheduledExecutorService getScheduler() {
+        synchronized (this) {
+
+            if (scheduler == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                    new DaemonThreadFactory("sonarqube-api-scheduler-"));
+                executor.setRemoveOnCancelPolicy(true);
+                scheduler = executor;
+            }
+
+            return (scheduler);
+        }
+    }
+
+    /**
+     * Creates the daemon threads used for bulk calls on JVMs without virtual threads, and for scheduling.
+     */
+    private static class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return (thread);
+        }
+    }
+
+    /**
+     * Enables or disables requesting gzip/deflate compressed responses. Enabled by default, compressed
+     * responses are decoded as they are read without buffering the entity.
+     *
+     * @param responseCompression if true compressed responses are requested
+     */
+    public void setResponseCompression(boolean responseCompression) {
+        apiClient.setResponseCompression(responseCompression);
+    }
+
+    /**
+     * Fluent method that enables or disables requesting gzip/deflate compressed responses.
+     *
+     * @param responseCompression if true compressed responses are requested
+     * @return this SonarApi instance
+     */
+    public SonarApi withResponseCompression(boolean responseCompression) {
+        apiClient.setResponseCompression(responseCompression);
+        return (this);
+    }
+
+    /**
+     * Sets the listener that receives the compressed and decoded byte counts of each compressed response.
+     *
+     * @param listener the listener, or null to remove the current listener
+     */
+    public void setCompressionListener(ResponseCompressionFilter.Listener listener) {
+        apiClient.setCompressionListener(listener);
+    }
+
+    /**
+     * Get the accumulated bandwidth savings of compressed responses.
+     *
+     * @return the accumulated bandwidth savings of compressed responses
+     */
+    public CompressionStats getCompressionStats() {
+        return (apiClient.getCompressionStats());
+    }
+
+    /**
+     * Sets the maximum number of asynchronous requests in flight. Requests made while the limit
+     * is reached are queued until an in-flight request completes.
+     *
+     * @param maxAsyncRequests the maximum number of asynchronous requests in flight
+     */
+    public void setMaxAsyncRequests(int maxAsyncRequests) {
+        apiClient.setMaxAsyncRequests(maxAsyncRequests);
+    }
+
+    /**
+     * Fluent method that sets the maximum number of asynchronous requests in flight.
+     *
+     * @param maxAsyncRequests the maximum number of asynchronous requests in flight
+     * @return this SonarApi instance
+     */
+    public SonarApi withMaxAsyncRequests(int maxAsyncRequests) {
+        apiClient.setMaxAsyncRequests(maxAsyncRequests);
+        return (this);
+    }
+
+    /**
+     * Get the number of asynchronous requests currently in flight.
+     *
+     * @return the number of asynchronous requests currently in flight
+     */
+    public int getAsyncRequestsInFlight() {
+        return (apiClient.getAsyncRequestsInFlight());
+    }
+
+    /**
+     * Get the number of asynchronous requests waiting for an in-flight slot.
+     *
+     * @return the number of asynchronous requests waiting for an in-flight slot
+     */
+    public int getAsyncRequestsPending() {
+        return (apiClient.getAsyncRequestsPending());
+    }
+
+    /**
+     * Get the leased, pending and available connection counts of the connection pool.
+     *
+     * @return the connection pool statistics, or null if the pooled transport is disabled or not yet in use
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return (apiClient.getConnectionPoolStats());
+    }
+
     /**
      * Enable the logging of the requests to and the responses from the GitLab server API
      * using the SonarApi shared Logger instance and Level.FINE as the level.
@@ -1,11 +1,25 @@
 package com.github.sonarnext.api;
 
 import com.github.sonarnext.api.utils.JacksonJson;
+import com.github.sonarnext.api.utils.CompressionStats;
+import com.github.sonarnext.api.utils.ConnectionPoolStats;
 import com.github.sonarnext.api.utils.MaskingLoggingFilter;
+import com.github.sonarnext.api.utils.ResponseCompressionFilter;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
 import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.apache.connector.ApacheHttpClientBuilderConfigurator;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
 import org.glassfish.jersey.media.multipart.Boundary;
 import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.glassfish.jersey.media.multipart.MultiPart;
@@ -25,6 +39,13 @@ import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -33,8 +54,43 @@ public class SonarApiClient implements AutoCloseable {
     protected static final String SUDO_HEADER           = "Sudo";
     protected static final String AUTHORIZATION_HEADER  = "Authorization";
 
+    /** The default maximum number of pooled connections. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+
+    /** The default maximum number of pooled connections per route (host). */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 64;
+
+    /** The default time in milliseconds after which an idle pooled connection is evicted. */
+    public static final long DEFAULT_CONNECTION_IDLE_TIMEOUT = 30000L;
+
+    /** The default keep-alive in milliseconds used when the server does not send a Keep-Alive header. */
+    public static final long DEFAULT_CONNECTION_KEEP_ALIVE = 30000L;
+
+    /** The default maximum number of asynchronous requests in flight. */
+    public static final int DEFAULT_MAX_ASYNC_REQUESTS = DEFAULT_MAX_CONNECTIONS;
+
+    // The time in milliseconds a replaced Client is kept open before its requests are checked,
+    // this covers the requests that got the Client but did not yet lease a connection
+    private static final long RETIRED_CLIENT_GRACE_PERIOD = 1000L;
+
+    // The time in milliseconds after which a replaced Client without a connection pool is closed,
+    // as the synchronous requests of such a Client cannot be tracked
+    private static final long RETIRED_CLIENT_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Processes the Response of an asynchronous request on the thread that completed it.
+     *
+     * @param <T> the type of the value produced from the Response
+     */
+    @FunctionalInterface
+    protected interface ResponseHandler<T> {
+        T handle(Response response) throws Exception;
+    }
+
     private final ClientConfig clientConfig;
-    private Client apiClient;
+    private volatile Client apiClient;
+    private volatile AtomicInteger apiClientAsyncRequests = new AtomicInteger();
+    private final List<RetiredClient> retiredClients = new CopyOnWriteArrayList<>();
     private final String baseUrl;
     private String hostUrl;
     private final String authToken;
@@ -43,6 +99,17 @@ public class SonarApiClient implements AutoCloseable {
     private HostnameVerifier openHostnameVerifier;
     private Integer connectTimeout;
     private Integer readTimeout;
+    private boolean connectionPoolEnabled = true;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private long connectionIdleTimeout = DEFAULT_CONNECTION_IDLE_TIMEOUT;
+    private long connectionKeepAlive = DEFAULT_CONNECTION_KEEP_ALIVE;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private ExecutorService asyncExecutor;
+    private ConnectorProvider connectorProvider;
+    private final ResponseCompressionFilter compressionFilter = new ResponseCompressionFilter();
+    private final JacksonJson jacksonJson = new JacksonJson();
+    private final AsyncRequestLimiter asyncRequestLimiter = new AsyncRequestLimiter(DEFAULT_MAX_ASYNC_REQUESTS);
 
 
     public SonarApiClient(String hostUrl, String privateToken) {
@@ -81,18 +148,31 @@ public class SonarApiClient implements AutoCloseable {
         clientConfig.property(ClientProperties.FEATURE_AUTO_DISCOVERY_DISABLE, true);
         clientConfig.property(ClientProperties.METAINF_SERVICES_LOOKUP_DISABLE, true);
 
-        clientConfig.register(JacksonJson.class);
+        // Set on the client rather than on each WebTarget, a WebTarget with its own properties gets
+        // its own client runtime and connector, which defeats the connection pool
+        clientConfig.property(ClientProperties.FOLLOW_REDIRECTS, true);
+
+        clientConfig.register(jacksonJson);
         clientConfig.register(MultiPartFeature.class);
+        clientConfig.register(compressionFilter);
     }
 
     /**
-     * Close the underlying {@link Client} and its associated resources.
+     * Close the underlying {@link Client} and its associated resources, including the Client instances
+     * replaced by a change of settings that were not closed yet.
      */
     @Override
-    public void close() {
+    public synchronized void close() {
+
         if (apiClient != null) {
             apiClient.close();
         }
+
+        for (RetiredClient retiredClient : retiredClients) {
+            retiredClient.client.close();
+        }
+
+        retiredClients.clear();
     }
 
     /**
@@ -111,9 +191,7 @@ public class SonarApiClient implements AutoCloseable {
         clientConfig.register(loggingFilter);
 
         // Recreate the Client instance if already created.
-        if (apiClient != null) {
-            createApiClient();
-        }
+        resetApiClient();
     }
 
     /**
@@ -127,6 +205,184 @@ public class SonarApiClient implements AutoCloseable {
         this.readTimeout = readTimeout;
     }
 
+    /**
+     * Enables or disables requesting gzip/deflate compressed responses, compressed responses
+     * are always decoded.
+     *
+     * @param responseCompression if true the Accept-Encoding header is sent with each request
+     */
+    void setResponseCompression(boolean responseCompression) {
+        compressionFilter.setEnabled(responseCompression);
+    }
+
+    /**
+     * Sets the listener that receives the compressed and decoded byte counts of each compressed response.
+     *
+     * @param listener the listener, or null to remove the current listener
+     */
+    void setCompressionListener(ResponseCompressionFilter.Listener listener) {
+        compressionFilter.setListener(listener);
+    }
+
+    /**
+     * Get the accumulated bandwidth savings of compressed responses.
+     *
+     * @return the accumulated bandwidth savings of compressed responses
+     */
+    CompressionStats getCompressionStats() {
+        return (compressionFilter.getStats());
+    }
+
+    /**
+     * Sets the Jersey ConnectorProvider used to send requests. This is the transport SPI of this client,
+     * a custom provider takes precedence over the pooled transport and the proxy settings are passed to it.
+     *
+     * @param connectorProvider the ConnectorProvider to use, or null to use the built-in transports
+     */
+    synchronized void setConnectorProvider(ConnectorProvider connectorProvider) {
+        if (this.connectorProvider != connectorProvider) {
+            this.connectorProvider = connectorProvider;
+            resetApiClient();
+        }
+    }
+
+    /**
+     * Enables or disables the pooled, keep-alive transport. When disabled the default Jersey
+     * connector is used, unless a proxy is configured.
+     *
+     * @param connectionPoolEnabled if true requests are sent over a pool of persistent connections
+     */
+    synchronized void setConnectionPoolEnabled(boolean connectionPoolEnabled) {
+        if (this.connectionPoolEnabled != connectionPoolEnabled) {
+            this.connectionPoolEnabled = connectionPoolEnabled;
+            resetApiClient();
+        }
+    }
+
+    /**
+     * Sets the size limits of the connection pool.
+     *
+     * @param maxConnections the maximum number of connections in the pool
+     * @param maxConnectionsPerRoute the maximum number of connections to a single host
+     */
+    synchronized void setConnectionPoolSize(int maxConnections, int maxConnectionsPerRoute) {
+
+        if (maxConnections < 1 || maxConnectionsPerRoute < 1) {
+            throw new IllegalArgumentException("connection pool limits must be greater than 0");
+        }
+
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        if (connectionManager != null) {
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        }
+    }
+
+    /**
+     * Sets the idle eviction and keep-alive timeouts of the connection pool.
+     *
+     * @param idleTimeout the time in milliseconds after which an idle connection is evicted, can be null to use default
+     * @param keepAlive the time in milliseconds a connection is kept alive when the server does not send
+     * a Keep-Alive header, can be null to use default
+     */
+    synchronized void setConnectionPoolTimeouts(Long idleTimeout, Long keepAlive) {
+        this.connectionIdleTimeout = (idleTimeout != null ? idleTimeout : DEFAULT_CONNECTION_IDLE_TIMEOUT);
+        this.connectionKeepAlive = (keepAlive != null ? keepAlive : DEFAULT_CONNECTION_KEEP_ALIVE);
+        resetApiClient();
+    }
+
+    /**
+     * Get the leased, pending and available connection counts of the connection pool.
+     *
+     * @return the connection pool statistics, or null if the pooled transport is disabled or not yet in use
+     */
+    ConnectionPoolStats getConnectionPoolStats() {
+
+        PoolingHttpClientConnectionManager manager = connectionManager;
+        if (manager == null) {
+            return (null);
+        }
+
+        PoolStats stats = manager.getTotalStats();
+        return (new ConnectionPoolStats(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax()));
+    }
+
+    /**
+     * Sets the maximum number of asynchronous requests in flight. Requests made while the limit
+     * is reached are queued until an in-flight request completes.
+     *
+     * @param maxAsyncRequests the maximum number of asynchronous requests in flight
+     */
+    void setMaxAsyncRequests(int maxAsyncRequests) {
+        asyncRequestLimiter.setMaxInFlight(maxAsyncRequests);
+    }
+
+    /**
+     * Sets the executor that runs asynchronous requests and their completion callbacks. The executor
+     * is not shut down by this client.
+     *
+     * @param asyncExecutor the executor for asynchronous requests, or null to use the Jersey default
+     */
+    synchronized void setAsyncExecutor(ExecutorService asyncExecutor) {
+        if (this.asyncExecutor != asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            resetApiClient();
+        }
+    }
+
+    /**
+     * Copies the transport settings of another client to this one: the request timeouts, the connector provider,
+     * the connection pool settings, response compression and the asynchronous request limit. The compression
+     * listener, the async executor and the certificate settings are not copied.
+     *
+     * @param other the client to copy the settings from
+     */
+    synchronized void copySettings(SonarApiClient other) {
+
+        synchronized (other) {
+            connectTimeout = other.connectTimeout;
+            readTimeout = other.readTimeout;
+            connectorProvider = other.connectorProvider;
+            connectionPoolEnabled = other.connectionPoolEnabled;
+            maxConnections = other.maxConnections;
+            maxConnectionsPerRoute = other.maxConnectionsPerRoute;
+            connectionIdleTimeout = other.connectionIdleTimeout;
+            connectionKeepAlive = other.connectionKeepAlive;
+        }
+
+        compressionFilter.setEnabled(other.compressionFilter.isEnabled());
+        asyncRequestLimiter.setMaxInFlight(other.asyncRequestLimiter.getMaxInFlight());
+        resetApiClient();
+    }
+
+    /**
+     * Get the number of asynchronous requests currently in flight.
+     *
+     * @return the number of asynchronous requests currently in flight
+     */
+    int getAsyncRequestsInFlight() {
+        return (asyncRequestLimiter.getInFlight());
+    }
+
+    /**
+     * Get the number of asynchronous requests waiting for an in-flight slot.
+     *
+     * @return the number of asynchronous requests waiting for an in-flight slot
+     */
+    int getAsyncRequestsPending() {
+        return (asyncRequestLimiter.getPending());
+    }
+
+    /**
+     * Get the JacksonJson instance this client uses to read and write entities.
+     *
+     * @return the JacksonJson instance this client uses to read and write entities
+     */
+    JacksonJson getJacksonJson() {
+        return (jacksonJson);
+    }
+
     /**
      * Get the auth token being used by this client.
      *
@@ -226,6 +482,96 @@ public class SonarApiClient implements AutoCloseable {
         return (invocation(url, queryParams, accepts).get());
     }
 
+    /**
+     * Perform an asynchronous HTTP GET call with the specified query parameters and path objects. The
+     * Response is passed to the handler on the thread that completed the request and closed afterwards.
+     *
+     * @param <T> the type of the value produced by the handler
+     * @param queryParams multivalue map of request parameters
+     * @param handler the handler that produces the result from the Response
+     * @param pathArgs variable list of arguments used to build the URI
+     * @return a CompletableFuture that completes with the value produced by the handler
+     * @throws IOException if an error occurs while constructing the URL
+     */
+    protected <T> CompletableFuture<T> getAsync(MultivaluedMap<String, String> queryParams,
+            ResponseHandler<T> handler, Object... pathArgs) throws IOException {
+        URL url = getApiUrl(pathArgs);
+        return (getAsync(queryParams, url, handler));
+    }
+
+    /**
+     * Perform an asynchronous HTTP GET call with the specified query parameters and URL. The
+     * Response is passed to the handler on the thread that completed the request and closed afterwards.
+     * Cancelling the returned future cancels the request.
+     *
+     * @param <T> the type of the value produced by the handler
+     * @param queryParams multivalue map of request parameters
+     * @param url the fully formed path to the GitLab API endpoint
+     * @param handler the handler that produces the result from the Response
+     * @return a CompletableFuture that completes with the value produced by the handler
+     */
+    protected <T> CompletableFuture<T> getAsync(MultivaluedMap<String, String> queryParams, URL url, ResponseHandler<T> handler) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        asyncRequestLimiter.submit(() -> {
+
+            // Counted against the Client before it is read, so it is not closed under the request if it is replaced
+            AtomicInteger clientRequests = apiClientAsyncRequests;
+            clientRequests.incrementAndGet();
+
+            // Called once, whether the request completes, fails or is cancelled
+            AtomicBoolean done = new AtomicBoolean();
+            Runnable release = () -> {
+                if (done.compareAndSet(false, true)) {
+                    clientRequests.decrementAndGet();
+                    asyncRequestLimiter.release();
+                }
+            };
+
+            // Cancelled while waiting for a slot
+            if (future.isDone()) {
+                release.run();
+                return;
+            }
+
+            try {
+                Future<Response> request = invocation(url, queryParams).async().get(new InvocationCallback<Response>() {
+
+                    @Override
+                    public void completed(Response response) {
+                        try {
+                            future.complete(handler.handle(response));
+                        } catch (Throwable t) {
+                            future.completeExceptionally(t);
+                        } finally {
+                            response.close();
+                            release.run();
+                        }
+                    }
+
+                    @Override
+                    public void failed(Throwable throwable) {
+                        future.completeExceptionally(throwable);
+                        release.run();
+                    }
+                });
+
+                future.whenComplete((result, thrown) -> {
+                    if (future.isCancelled()) {
+                        request.cancel(true);
+                        release.run();
+                    }
+                });
+
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                release.run();
+            }
+        });
+
+        return (future);
+    }
+
     /**
      * Perform an HTTP HEAD call with the specified query parameters and path objects, returning
      * a ClientResponse instance with the data returned from the endpoint.
@@ -547,30 +893,129 @@ public class SonarApiClient implements AutoCloseable {
         return (invocation(url, queryParams, MediaType.APPLICATION_JSON));
     }
 
-    protected Client createApiClient() {
+    protected synchronized Client createApiClient() {
+
+        ClientConfig config = clientConfig;
+        connectionManager = null;
+        if (connectorProvider != null) {
+            config = new ClientConfig().loadFrom(clientConfig);
+            config.connectorProvider(connectorProvider);
+        } else if (connectionPoolEnabled) {
+            connectionManager = createConnectionManager();
+            config = new ClientConfig().loadFrom(clientConfig);
+            config.connectorProvider(new ApacheConnectorProvider());
+            config.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+            config.register(createHttpClientBuilderConfigurator(), ApacheHttpClientBuilderConfigurator.class);
+        }
 
         // Explicitly use an instance of the JerseyClientBuilder, this allows this
         // library to work when both Jersey and Resteasy are present
-        ClientBuilder clientBuilder = new JerseyClientBuilder().withConfig(clientConfig);
+        ClientBuilder clientBuilder = new JerseyClientBuilder().withConfig(config);
 
         // Register JacksonJson as the ObjectMapper provider.
-        clientBuilder.register(JacksonJson.class);
+        clientBuilder.register(jacksonJson);
 
         if (ignoreCertificateErrors) {
             clientBuilder.sslContext(openSslContext).hostnameVerifier(openHostnameVerifier);
         }
 
+        if (asyncExecutor != null) {
+            clientBuilder.executorService(asyncExecutor);
+        }
+
         apiClient = clientBuilder.build();
         return (apiClient);
     }
 
+    /**
+     * Creates the connection manager used by the pooled transport. As the connection manager owns the
+     * sockets, the SSL setup done on the Jersey client is repeated here.
+     *
+     * @return a new PoolingHttpClientConnectionManager instance
+     */
+    private PoolingHttpClientConnectionManager createConnectionManager() {
+
+        SSLConnectionSocketFactory sslSocketFactory = (ignoreCertificateErrors ?
+            new SSLConnectionSocketFactory(openSslContext, openHostnameVerifier) :
+            SSLConnectionSocketFactory.getSystemSocketFactory());
+
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build();
+
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(registry);
+        manager.setMaxTotal(maxConnections);
+        manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        return (manager);
+    }
+
+    /**
+     * Creates the configurator that enables idle connection eviction and applies the keep-alive
+     * fallback on the Apache HttpClient used by the pooled transport.
+     *
+     * @return an ApacheHttpClientBuilderConfigurator instance
+     */
+    private ApacheHttpClientBuilderConfigurator createHttpClientBuilderConfigurator() {
+
+        final long idleTimeout = connectionIdleTimeout;
+        final long keepAlive = connectionKeepAlive;
+        // Content compression is handled by the ResponseCompressionFilter for every transport
+        return (builder -> builder
+            .disableContentCompression()
+            .evictExpiredConnections()
+            .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+            .setKeepAliveStrategy((response, context) -> {
+                long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return (serverKeepAlive > 0 ? serverKeepAlive : keepAlive);
+            }));
+    }
+
+    /**
+     * Replaces the current Client instance, if any, so it is recreated with the current settings on the next request.
+     * The replaced Client is not closed right away as requests may still be using it, it is closed by
+     * {@link #closeRetiredClients()} once its requests have completed.
+     */
+    private synchronized void resetApiClient() {
+
+        if (apiClient != null) {
+            retiredClients.add(new RetiredClient(apiClient, connectionManager, apiClientAsyncRequests));
+            // The Client is cleared before its request counter is replaced, see getAsync()
+            apiClient = null;
+            apiClientAsyncRequests = new AtomicInteger();
+        }
+
+        closeRetiredClients();
+    }
+
+    /**
+     * Closes the replaced Client instances that no longer have requests in flight.
+     */
+    private synchronized void closeRetiredClients() {
+
+        long now = System.currentTimeMillis();
+        for (RetiredClient retiredClient : retiredClients) {
+            if (retiredClient.isDrained(now)) {
+                retiredClients.remove(retiredClient);
+                retiredClient.client.close();
+            }
+        }
+    }
+
     protected Invocation.Builder invocation(URL url, MultivaluedMap<String, String> queryParams, String accept) {
 
-        if (apiClient == null) {
-            createApiClient();
+        Client client = apiClient;
+        if (client == null) {
+            synchronized (this) {
+                client = (apiClient != null ? apiClient : createApiClient());
+            }
+        }
+
+        if (!retiredClients.isEmpty()) {
+            closeRetiredClients();
         }
 
-        WebTarget target = apiClient.target(url.toExternalForm()).property(ClientProperties.FOLLOW_REDIRECTS, true);
+        WebTarget target = client.target(url.toExternalForm());
         if (queryParams != null) {
             for (Map.Entry<String, List<String>> param : queryParams.entrySet()) {
                 target = target.queryParam(param.getKey(), param.getValue().toArray());
@@ -630,16 +1075,16 @@ public class SonarApiClient implements AutoCloseable {
             this.ignoreCertificateErrors = false;
             openSslContext = null;
             openHostnameVerifier = null;
-            apiClient = null;
+            resetApiClient();
 
         } else {
 
             if (setupIgnoreCertificateErrors()) {
                 this.ignoreCertificateErrors = true;
-                apiClient = null;
+                resetApiClient();
             } else {
                 this.ignoreCertificateErrors = false;
-                apiClient = null;
+                resetApiClient();
                 throw new RuntimeException("Unable to ignore certificate errors.");
             }
         }
@@ -705,4 +1150,42 @@ public class SonarApiClient implements AutoCloseable {
         return (true);
     }
 
+    /**
+     * A Client replaced by a change of settings, with what is needed to tell when its requests have completed.
+     */
+    private static class RetiredClient {
+
+        private final Client client;
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final AtomicInteger asyncRequests;
+        private final long retiredAt = System.currentTimeMillis();
+
+        RetiredClient(Client client, PoolingHttpClientConnectionManager connectionManager, AtomicInteger asyncRequests) {
+            this.client = client;
+            this.connectionManager = connectionManager;
+            this.asyncRequests = asyncRequests;
+        }
+
+        /**
+         * Returns true if the Client no longer has requests in flight. A synchronous request holds a leased
+         * connection until its Response is closed, so the pool tells when they have all completed.
+         *
+         * @param now the current time in milliseconds
+         * @return true if the Client can be closed
+         */
+        boolean isDrained(long now) {
+
+            long age = now - retiredAt;
+            if (age < RETIRED_CLIENT_GRACE_PERIOD || asyncRequests.get() > 0) {
+                return (false);
+            }
+
+            if (connectionManager == null) {
+                return (age >= RETIRED_CLIENT_TIMEOUT);
+            }
+
+            PoolStats stats = connectionManager.getTotalStats();
+            return (stats.getLeased() == 0 && stats.getPending() == 0);
+        }
+    }
 }
@@ -18,15 +18,15 @@ public class SonarApiForm extends Form {
     }
 
     /**
-     * Create a SonarApiForm instance with the "page", and "per_page" parameters preset.
+     * Create a SonarApiForm instance with the "p", and "ps" parameters preset.
      *
-     * @param page the value for the "page" parameter
-     * @param perPage the value for the "per_page" parameter
+     * @param page the value for the "p" parameter
+     * @param perPage the value for the "ps" parameter
      */
     public SonarApiForm(int page, int perPage) {
         super();
-        withParam(AbstractApi.PAGE_PARAM,  page);
-        withParam(AbstractApi.PER_PAGE_PARAM, (Integer)perPage);
+        withParam(AbstractApi.PAGE_INDEX_PARAM,  page);
+        withParam(AbstractApi.PAGE_SIZE_PARAM, (Integer)perPage);
     }
 
     /**
@@ -61,7 +61,7 @@ public class SonarApiForm extends Form {
      * @throws IllegalArgumentException if a required parameter is null or empty
      */
     public SonarApiForm withParam(String name, Date date, boolean required) throws IllegalArgumentException {
-        return (withParam(name, (date == null ? null : ISO8601.toString(date)), required));
+        return (withParam(name, (date == null ? null : ISO8601.toOffsetString(date)), required));
     }
 
     /**
@@ -0,0 +1,217 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.utils.JavaPlatform;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class implements the client side API for the SonarQube sources web services. The sources are copied
+ * from the response to a channel or file as bytes, they are never decoded to a String.
+ */
+public class SourcesApi extends AbstractApi {
+
+    // The size of the chunks copied from the response into a memory-mapped file
+    private static final int MAPPED_COPY_BUFFER_SIZE = 64 * 1024;
+
+    // The largest file FileChannel.map() can map at once, larger sources are written through the file channel
+    private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+    public SourcesApi(SonarApi sonarApi) {
+        super(sonarApi);
+    }
+
+    /**
+     * Copies the raw source of a file to a channel, as returned by api/sources/raw. The channel is not closed.
+     *
+     * @param key the key of the file
+     * @param branch the branch, can be null
+     * @param pullRequest the pull request, can be null
+     * @param channel the channel to write the source to
+     * @return the number of bytes written
+     * @throws SonarApiException if any exception occurs
+     */
+    public long getRawSource(String key, String branch, String pullRequest, WritableByteChannel channel) throws SonarApiException {
+        return (copy(getQueryParams(key, branch, pullRequest), channel, "api/sources/raw"));
+    }
+
+    /**
+     * Downloads the raw source of a file to a local file, as returned by api/sources/raw. The source is written to a
+     * temporary file next to the target, which replaces the target once the whole source has been received.
+     *
+     * @param key the key of the file
+     * @param branch the branch, can be null
+     * @param pullRequest the pull request, can be null
+     * @param target the file to write the source to, replaced if it exists
+     * @param memoryMapped if true and the size of the source is known before it is read and is at most 2 GB, the
+     *                     source is copied into a memory-mapped file instead of being written through the file channel
+     * @return the number of bytes written
+     * @throws SonarApiException if any exception occurs
+     */
+    public long getRawSource(String key, String branch, String pullRequest, Path target, boolean memoryMapped) throws SonarApiException {
+        return (download(getQueryParams(key, branch, pullRequest), target, memoryMapped, "api/sources/raw"));
+    }
+
+    /**
+     * Copies the api/sources/lines JSON response for a range of lines of a file to a channel, without parsing it.
+     * The channel is not closed.
+     *
+     * @param key the key of the file
+     * @param from the first line to get, null to start at line 1
+     * @param to the last line to get, null to get up to the last line
+     * @param channel the channel to write the JSON to
+     * @return the number of bytes written
+     * @throws SonarApiException if any exception occurs
+     */
+    public long getLines(String key, Integer from, Integer to, WritableByteChannel channel) throws SonarApiException {
+        return (copy(getLinesQueryParams(key, from, to), channel, "api/sources/lines"));
+    }
+
+    /**
+     * Downloads the api/sources/lines JSON response for a range of lines of a file to a local file, without parsing
+     * it, see {@link #getRawSource(String, String, String, Path, boolean)}.
+     *
+     * @param key the key of the file
+     * @param from the first line to get, null to start at line 1
+     * @param to the last line to get, null to get up to the last line
+     * @param target the file to write the JSON to, replaced if it exists
+     * @param memoryMapped if true and the size of the response is known before it is read and is at most 2 GB,
+     *                     it is copied into a memory-mapped file
+     * @return the number of bytes written
+     * @throws SonarApiException if any exception occurs
+     */
+    public long getLines(String key, Integer from, Integer to, Path target, boolean memoryMapped) throws SonarApiException {
+        return (download(getLinesQueryParams(key, from, to), target, memoryMapped, "api/sources/lines"));
+    }
+
+    private static MultivaluedMap<String, String> getQueryParams(String key, String branch, String pullRequest) {
+
+        if (key == null) {
+            throw new RuntimeException("key cannot be null");
+        }
+
+        return (new SonarApiForm()
+            .withParam("key", key)
+            .withParam("branch", branch)
+            .withParam("pullRequest", pullRequest)
+            .asMap());
+    }
+
+    private static MultivaluedMap<String, String> getLinesQueryParams(String key, Integer from, Integer to) {
+
+        if (key == null) {
+            throw new RuntimeException("key cannot be null");
+        }
+
+        return (new SonarApiForm()
+            .withParam("key", key)
+            .withParam("from", from)
+            .withParam("to", to)
+            .asMap());
+    }
+
+    private long copy(MultivaluedMap<String, String> queryParams, WritableByteChannel channel, Object... pathArgs) throws SonarApiException {
+
+        Response response = getWithAccepts(Response.Status.OK, queryParams, MediaType.WILDCARD, pathArgs);
+        try (InputStream in = response.readEntity(InputStream.class)) {
+            return (JavaPlatform.transfer(in, Channels.newOutputStream(channel)));
+        } catch (IOException e) {
+            throw handle(e);
+        } finally {
+            response.close();
+        }
+    }
+
+    private long download(MultivaluedMap<String, String> queryParams, Path target, boolean memoryMapped,
+            Object... pathArgs) throws SonarApiException {
+
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = null;
+        Response response = getWithAccepts(Response.Status.OK, queryParams, MediaType.WILDCARD, pathArgs);
+
+        // Content-Length is only the size of the entity when the response is not compressed, the headers are read
+        // before the entity since the decoding of a compressed entity removes its Content-Encoding header
+        String encoding = response.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+        long contentLength = (encoding == null || "identity".equalsIgnoreCase(encoding) ? getContentLength(response) : -1);
+        try (InputStream in = response.readEntity(InputStream.class)) {
+
+            temp = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+            long length;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (memoryMapped && contentLength > 0 && contentLength <= MAX_MAPPED_SIZE) {
+                    length = copyMapped(in, channel, contentLength);
+                } else {
+                    length = JavaPlatform.transfer(in, Channels.newOutputStream(channel));
+                }
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            temp = null;
+            return (length);
+
+        } catch (IOException e) {
+            throw handle(e);
+        } finally {
+            response.close();
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    // Response.getLength() is an int and fails on a Content-Length above Integer.MAX_VALUE
+    private static long getContentLength(Response response) {
+
+        String contentLength = response.getHeaderString(HttpHeaders.CONTENT_LENGTH);
+        try {
+            return (contentLength != null ? Long.parseLong(contentLength.trim()) : -1);
+        } catch (NumberFormatException e) {
+            return (-1);
+        }
+    }
+
+    // The file is unmapped before it is closed and moved, a mapped file cannot be moved or deleted on Windows
+    private static long copyMapped(InputStream in, FileChannel channel, long length) throws IOException {
+
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        try {
+
+            byte[] buffer = new byte[(int) Math.min(MAPPED_COPY_BUFFER_SIZE, length)];
+            int read;
+            while (mapped.hasRemaining() && (read = in.read(buffer, 0, Math.min(buffer.length, mapped.remaining()))) >= 0) {
+                mapped.put(buffer, 0, read);
+            }
+
+            if (mapped.hasRemaining() || in.read() >= 0) {
+                throw new IOException("The response body does not match its Content-Length of " + length + " bytes");
+            }
+
+            mapped.force();
+            return (length);
+
+        } finally {
+            JavaPlatform.unmap(mapped);
+        }
+    }
+}
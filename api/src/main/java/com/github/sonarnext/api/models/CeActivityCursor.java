@@ -0,0 +1,57 @@
+package com.github.sonarnext.api.models;
+
+import com.github.sonarnext.api.utils.JacksonJson;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The position of a collector in the CE activity, see CeApi.streamActivity(). The cursor is a plain
+ * bean, so it can be persisted between runs, for example as JSON with {@link JacksonJson}.
+ */
+public class CeActivityCursor {
+
+    private long minSubmittedAt;
+    private Set<String> seenIds = new LinkedHashSet<>();
+
+    /**
+     * Get the submission time, in epoch milliseconds, of the oldest task that can still be new.
+     *
+     * @return the submission time of the oldest task that can still be new, 0 to start at the oldest task
+     */
+    public long getMinSubmittedAt() {
+        return minSubmittedAt;
+    }
+
+    public void setMinSubmittedAt(long minSubmittedAt) {
+        this.minSubmittedAt = minSubmittedAt;
+    }
+
+    /**
+     * Get the IDs of the tasks submitted at or after minSubmittedAt that have already been returned.
+     *
+     * @return the IDs of the tasks that have already been returned
+     */
+    public Set<String> getSeenIds() {
+        return seenIds;
+    }
+
+    public void setSeenIds(Set<String> seenIds) {
+        this.seenIds = (seenIds != null ? seenIds : new LinkedHashSet<>());
+    }
+
+    public CeActivityCursor withMinSubmittedAt(long minSubmittedAt) {
+        this.minSubmittedAt = minSubmittedAt;
+        return (this);
+    }
+
+    public CeActivityCursor withSeenIds(Set<String> seenIds) {
+        setSeenIds(seenIds);
+        return (this);
+    }
+
+    @Override
+    public String toString() {
+        return (JacksonJson.toJsonString(this));
+    }
+}
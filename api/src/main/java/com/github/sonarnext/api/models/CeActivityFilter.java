@@ -0,0 +1,157 @@
+package com.github.sonarnext.api.models;
+
+import com.github.sonarnext.api.Constants;
+import com.github.sonarnext.api.SonarApiForm;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class is used to filter the CE tasks returned by api/ce/activity.
+ */
+public class CeActivityFilter {
+
+    private String component;
+    private Date maxExecutedAt;
+    private Date minSubmittedAt;
+    private Boolean onlyCurrents;
+    private String q;
+    private List<String> statuses;
+    private String type;
+
+    public String getComponent() {
+        return component;
+    }
+
+    public void setComponent(String component) {
+        this.component = component;
+    }
+
+    public Date getMaxExecutedAt() {
+        return maxExecutedAt;
+    }
+
+    public void setMaxExecutedAt(Date maxExecutedAt) {
+        this.maxExecutedAt = maxExecutedAt;
+    }
+
+    public Date getMinSubmittedAt() {
+        return minSubmittedAt;
+    }
+
+    public void setMinSubmittedAt(Date minSubmittedAt) {
+        this.minSubmittedAt = minSubmittedAt;
+    }
+
+    public Boolean getOnlyCurrents() {
+        return onlyCurrents;
+    }
+
+    public void setOnlyCurrents(Boolean onlyCurrents) {
+        this.onlyCurrents = onlyCurrents;
+    }
+
+    public String getQ() {
+        return q;
+    }
+
+    public void setQ(String q) {
+        this.q = q;
+    }
+
+    public List<String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+        this.statuses = statuses;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public CeActivityFilter withComponent(String component) {
+        this.component = component;
+        return (this);
+    }
+
+    public CeActivityFilter withMaxExecutedAt(Date maxExecutedAt) {
+        this.maxExecutedAt = maxExecutedAt;
+        return (this);
+    }
+
+    public CeActivityFilter withMinSubmittedAt(Date minSubmittedAt) {
+        this.minSubmittedAt = minSubmittedAt;
+        return (this);
+    }
+
+    public CeActivityFilter withOnlyCurrents(Boolean onlyCurrents) {
+        this.onlyCurrents = onlyCurrents;
+        return (this);
+    }
+
+    public CeActivityFilter withQ(String q) {
+        this.q = q;
+        return (this);
+    }
+
+    public CeActivityFilter withStatuses(List<String> statuses) {
+        this.statuses = statuses;
+        return (this);
+    }
+
+    public CeActivityFilter withType(String type) {
+        this.type = type;
+        return (this);
+    }
+
+    /**
+     * Create a copy of this filter.
+     *
+     * @return a new CeActivityFilter with the same criteria as this instance
+     */
+    public CeActivityFilter copy() {
+        return (new CeActivityFilter()
+            .withComponent(component)
+            .withMaxExecutedAt(maxExecutedAt)
+            .withMinSubmittedAt(minSubmittedAt)
+            .withOnlyCurrents(onlyCurrents)
+            .withQ(q)
+            .withStatuses(statuses)
+            .withType(type));
+    }
+
+    /**
+     * Get the form params specified by this filter.
+     *
+     * @return a SonarApiForm instance holding the form parameters for this CeActivityFilter instance
+     */
+    public SonarApiForm getQueryParams() {
+        return (new SonarApiForm()
+            .withParam("component", component)
+            .withParam("maxExecutedAt", maxExecutedAt)
+            .withParam("minSubmittedAt", minSubmittedAt)
+            .withParam("onlyCurrents", onlyCurrents)
+            .withParam("q", q)
+            .withParam("status", (statuses != null && !statuses.isEmpty() ? String.join(",", statuses) : null))
+            .withParam("type", type));
+    }
+
+    /**
+     * Get the form params specified by this filter for the specified page.
+     *
+     * @param page the 1-based index of the page to get
+     * @param perPage the number of tasks per page
+     * @return a SonarApiForm instance holding the form parameters for this CeActivityFilter instance
+     */
+    public SonarApiForm getQueryParams(int page, int perPage) {
+        return (getQueryParams()
+            .withParam(Constants.PAGE_INDEX_PARAM, page)
+            .withParam(Constants.PAGE_SIZE_PARAM, perPage));
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.sonarnext.api.models;
+
+public class CeInfo {
+
+    private String workersPauseStatus;
+
+    public String getWorkersPauseStatus() {
+        return workersPauseStatus;
+    }
+
+    public void setWorkersPauseStatus(String workersPauseStatus) {
+        this.workersPauseStatus = workersPauseStatus;
+    }
+}
@@ -1,7 +1,13 @@
 package com.github.sonarnext.api.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.sonarnext.api.utils.ISO8601;
+
 public class CeTask {
 
+    /** Returned by the epoch millis accessors of {@link Task} when the timestamp is not present. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
     private Task task;
 
     public Task getTask() {
@@ -33,6 +39,11 @@ public class CeTask {
         private String scannerContext;
         private Boolean hasScannerContext;
 
+        // The timestamps decoded once when they are set, NO_TIME when not present
+        private long submittedAtMillis = NO_TIME;
+        private long startedAtMillis = NO_TIME;
+        private long executedAtMillis = NO_TIME;
+
         public String getOrganization() {
             return organization;
         }
@@ -111,6 +122,12 @@ public class CeTask {
 
         public void setSubmittedAt(String submittedAt) {
             this.submittedAt = submittedAt;
+            this.submittedAtMillis = ISO8601.toEpochMillis(submittedAt, NO_TIME);
+        }
+
+        @JsonIgnore
+        public long getSubmittedAtMillis() {
+            return submittedAtMillis;
         }
 
         public String getStartedAt() {
@@ -119,6 +136,12 @@ public class CeTask {
 
         public void setStartedAt(String startedAt) {
             this.startedAt = startedAt;
+            this.startedAtMillis = ISO8601.toEpochMillis(startedAt, NO_TIME);
+        }
+
+        @JsonIgnore
+        public long getStartedAtMillis() {
+            return startedAtMillis;
         }
 
         public String getExecutedAt() {
@@ -127,6 +150,12 @@ public class CeTask {
 
         public void setExecutedAt(String executedAt) {
             this.executedAt = executedAt;
+            this.executedAtMillis = ISO8601.toEpochMillis(executedAt, NO_TIME);
+        }
+
+        @JsonIgnore
+        public long getExecutedAtMillis() {
+            return executedAtMillis;
         }
 
         public Long getExecutionTimeMs() {
@@ -184,5 +213,25 @@ public class CeTask {
         public void setHasScannerContext(Boolean hasScannerContext) {
             this.hasScannerContext = hasScannerContext;
         }
+
+        /**
+         * Get the time the task waited in the queue, computed from the decoded timestamps.
+         *
+         * @return the milliseconds between submittedAt and startedAt, or NO_TIME if either is not present
+         */
+        @JsonIgnore
+        public long getQueueWaitMs() {
+            return (submittedAtMillis != NO_TIME && startedAtMillis != NO_TIME ? startedAtMillis - submittedAtMillis : NO_TIME);
+        }
+
+        /**
+         * Get the time from the submission to the end of the task, computed from the decoded timestamps.
+         *
+         * @return the milliseconds between submittedAt and executedAt, or NO_TIME if either is not present
+         */
+        @JsonIgnore
+        public long getTurnaroundMs() {
+            return (submittedAtMillis != NO_TIME && executedAtMillis != NO_TIME ? executedAtMillis - submittedAtMillis : NO_TIME);
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.github.sonarnext.api.models;
+
+public class CeWorkerCount {
+
+    private Integer value;
+    private Boolean canSetWorkerCount;
+
+    public Integer getValue() {
+        return value;
+    }
+
+    public void setValue(Integer value) {
+        this.value = value;
+    }
+
+    public Boolean getCanSetWorkerCount() {
+        return canSetWorkerCount;
+    }
+
+    public void setCanSetWorkerCount(Boolean canSetWorkerCount) {
+        this.canSetWorkerCount = canSetWorkerCount;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.sonarnext.api.models;
+
+/**
+ * A component (project, directory, file...) returned by the SonarQube components web services.
+ */
+public class Component {
+
+    /** The qualifier of a file. */
+    public static final String FILE = "FIL";
+
+    /** The qualifier of a unit test file. */
+    public static final String UNIT_TEST_FILE = "UTS";
+
+    /** The qualifier of a directory. */
+    public static final String DIRECTORY = "DIR";
+
+    private String key;
+    private String name;
+    private String qualifier;
+    private String path;
+    private String language;
+    private String project;
+    private String description;
+    private String visibility;
+    private String analysisDate;
+    private Boolean enabled;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getQualifier() {
+        return qualifier;
+    }
+
+    public void setQualifier(String qualifier) {
+        this.qualifier = qualifier;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getVisibility() {
+        return visibility;
+    }
+
+    public void setVisibility(String visibility) {
+        this.visibility = visibility;
+    }
+
+    public String getAnalysisDate() {
+        return analysisDate;
+    }
+
+    public void setAnalysisDate(String analysisDate) {
+        this.analysisDate = analysisDate;
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.sonarnext.api.models;
+
+import java.util.List;
+
+/**
+ * A facet returned by the SonarQube search web services, the number of results for each value of a property.
+ */
+public class Facet {
+
+    private String property;
+    private List<Value> values;
+
+    public String getProperty() {
+        return property;
+    }
+
+    public void setProperty(String property) {
+        this.property = property;
+    }
+
+    public List<Value> getValues() {
+        return values;
+    }
+
+    public void setValues(List<Value> values) {
+        this.values = values;
+    }
+
+    public static class Value {
+
+        private String val;
+        private Integer count;
+
+        public String getVal() {
+            return val;
+        }
+
+        public void setVal(String val) {
+            this.val = val;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+    }
+}
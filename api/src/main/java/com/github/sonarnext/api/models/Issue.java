@@ -0,0 +1,367 @@
+package com.github.sonarnext.api.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.sonarnext.api.utils.ISO8601;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An issue returned by api/issues/search. The dates are decoded to epoch milliseconds when they are set and
+ * the flows and other large optional fields of the response are not kept, so that a page of issues stays small.
+ */
+public class Issue {
+
+    /** Returned by the epoch millis accessors when the date is not present. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private String key;
+    private String rule;
+    private String severity;
+    private String component;
+    private String project;
+    private Integer line;
+    private String hash;
+    private TextRange textRange;
+    private String status;
+    private String resolution;
+    private String message;
+    private String effort;
+    private String debt;
+    private String author;
+    private String assignee;
+    private List<String> tags;
+    private List<String> transitions;
+    private List<String> actions;
+    private List<Comment> comments;
+    private String type;
+    private String scope;
+    private Boolean quickFixAvailable;
+
+    private long creationDateMillis = NO_TIME;
+    private long updateDateMillis = NO_TIME;
+    private long closeDateMillis = NO_TIME;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public void setRule(String rule) {
+        this.rule = rule;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(String severity) {
+        this.severity = severity;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public void setComponent(String component) {
+        this.component = component;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public Integer getLine() {
+        return line;
+    }
+
+    public void setLine(Integer line) {
+        this.line = line;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public TextRange getTextRange() {
+        return textRange;
+    }
+
+    public void setTextRange(TextRange textRange) {
+        this.textRange = textRange;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(String resolution) {
+        this.resolution = resolution;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getEffort() {
+        return effort;
+    }
+
+    public void setEffort(String effort) {
+        this.effort = effort;
+    }
+
+    public String getDebt() {
+        return debt;
+    }
+
+    public void setDebt(String debt) {
+        this.debt = debt;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public void setAssignee(String assignee) {
+        this.assignee = assignee;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public List<String> getTransitions() {
+        return transitions;
+    }
+
+    public void setTransitions(List<String> transitions) {
+        this.transitions = transitions;
+    }
+
+    public List<String> getActions() {
+        return actions;
+    }
+
+    public void setActions(List<String> actions) {
+        this.actions = actions;
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    public void setComments(List<Comment> comments) {
+        this.comments = comments;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public Boolean getQuickFixAvailable() {
+        return quickFixAvailable;
+    }
+
+    public void setQuickFixAvailable(Boolean quickFixAvailable) {
+        this.quickFixAvailable = quickFixAvailable;
+    }
+
+    public Date getCreationDate() {
+        return (toDate(creationDateMillis));
+    }
+
+    public void setCreationDate(String creationDate) {
+        this.creationDateMillis = ISO8601.toEpochMillis(creationDate, NO_TIME);
+    }
+
+    @JsonIgnore
+    public long getCreationDateMillis() {
+        return creationDateMillis;
+    }
+
+    public Date getUpdateDate() {
+        return (toDate(updateDateMillis));
+    }
+
+    public void setUpdateDate(String updateDate) {
+        this.updateDateMillis = ISO8601.toEpochMillis(updateDate, NO_TIME);
+    }
+
+    @JsonIgnore
+    public long getUpdateDateMillis() {
+        return updateDateMillis;
+    }
+
+    public Date getCloseDate() {
+        return (toDate(closeDateMillis));
+    }
+
+    public void setCloseDate(String closeDate) {
+        this.closeDateMillis = ISO8601.toEpochMillis(closeDate, NO_TIME);
+    }
+
+    @JsonIgnore
+    public long getCloseDateMillis() {
+        return closeDateMillis;
+    }
+
+    private static Date toDate(long millis) {
+        return (millis != NO_TIME ? new Date(millis) : null);
+    }
+
+    /**
+     * The location of an issue in its file.
+     */
+    public static class TextRange {
+
+        private Integer startLine;
+        private Integer endLine;
+        private Integer startOffset;
+        private Integer endOffset;
+
+        public Integer getStartLine() {
+            return startLine;
+        }
+
+        public void setStartLine(Integer startLine) {
+            this.startLine = startLine;
+        }
+
+        public Integer getEndLine() {
+            return endLine;
+        }
+
+        public void setEndLine(Integer endLine) {
+            this.endLine = endLine;
+        }
+
+        public Integer getStartOffset() {
+            return startOffset;
+        }
+
+        public void setStartOffset(Integer startOffset) {
+            this.startOffset = startOffset;
+        }
+
+        public Integer getEndOffset() {
+            return endOffset;
+        }
+
+        public void setEndOffset(Integer endOffset) {
+            this.endOffset = endOffset;
+        }
+    }
+
+    /**
+     * A comment of an issue, returned when the additionalFields include "comments".
+     */
+    public static class Comment {
+
+        private String key;
+        private String login;
+        private String htmlText;
+        private String markdown;
+        private Boolean updatable;
+        private String createdAt;
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public void setLogin(String login) {
+            this.login = login;
+        }
+
+        public String getHtmlText() {
+            return htmlText;
+        }
+
+        public void setHtmlText(String htmlText) {
+            this.htmlText = htmlText;
+        }
+
+        public String getMarkdown() {
+            return markdown;
+        }
+
+        public void setMarkdown(String markdown) {
+            this.markdown = markdown;
+        }
+
+        public Boolean getUpdatable() {
+            return updatable;
+        }
+
+        public void setUpdatable(Boolean updatable) {
+            this.updatable = updatable;
+        }
+
+        public String getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(String createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+}
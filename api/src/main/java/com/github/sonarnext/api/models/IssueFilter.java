@@ -0,0 +1,424 @@
+package com.github.sonarnext.api.models;
+
+import com.github.sonarnext.api.Constants;
+import com.github.sonarnext.api.SonarApiForm;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class is used to filter the issues returned by api/issues/search.
+ */
+public class IssueFilter {
+
+    private List<String> componentKeys;
+    private List<String> projects;
+    private String branch;
+    private String pullRequest;
+    private List<String> issues;
+    private List<String> severities;
+    private List<String> statuses;
+    private List<String> resolutions;
+    private Boolean resolved;
+    private List<String> types;
+    private List<String> rules;
+    private List<String> tags;
+    private List<String> assignees;
+    private List<String> authors;
+    private List<String> languages;
+    private Date createdAfter;
+    private Date createdBefore;
+    private String createdInLast;
+    private Boolean inNewCodePeriod;
+    private List<String> additionalFields;
+    private List<String> facets;
+    private String s;
+    private Boolean asc;
+
+    public List<String> getComponentKeys() {
+        return componentKeys;
+    }
+
+    public void setComponentKeys(List<String> componentKeys) {
+        this.componentKeys = componentKeys;
+    }
+
+    public List<String> getProjects() {
+        return projects;
+    }
+
+    public void setProjects(List<String> projects) {
+        this.projects = projects;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public void setBranch(String branch) {
+        this.branch = branch;
+    }
+
+    public String getPullRequest() {
+        return pullRequest;
+    }
+
+    public void setPullRequest(String pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+
+    public List<String> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(List<String> issues) {
+        this.issues = issues;
+    }
+
+    public List<String> getSeverities() {
+        return severities;
+    }
+
+    public void setSeverities(List<String> severities) {
+        this.severities = severities;
+    }
+
+    public List<String> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<String> statuses) {
+        this.statuses = statuses;
+    }
+
+    public List<String> getResolutions() {
+        return resolutions;
+    }
+
+    public void setResolutions(List<String> resolutions) {
+        this.resolutions = resolutions;
+    }
+
+    public Boolean getResolved() {
+        return resolved;
+    }
+
+    public void setResolved(Boolean resolved) {
+        this.resolved = resolved;
+    }
+
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public void setTypes(List<String> types) {
+        this.types = types;
+    }
+
+    public List<String> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<String> rules) {
+        this.rules = rules;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public List<String> getAssignees() {
+        return assignees;
+    }
+
+    public void setAssignees(List<String> assignees) {
+        this.assignees = assignees;
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<String> authors) {
+        this.authors = authors;
+    }
+
+    public List<String> getLanguages() {
+        return languages;
+    }
+
+    public void setLanguages(List<String> languages) {
+        this.languages = languages;
+    }
+
+    public Date getCreatedAfter() {
+        return createdAfter;
+    }
+
+    public void setCreatedAfter(Date createdAfter) {
+        this.createdAfter = createdAfter;
+    }
+
+    public Date getCreatedBefore() {
+        return createdBefore;
+    }
+
+    public void setCreatedBefore(Date createdBefore) {
+        this.createdBefore = createdBefore;
+    }
+
+    public String getCreatedInLast() {
+        return createdInLast;
+    }
+
+    public void setCreatedInLast(String createdInLast) {
+        this.createdInLast = createdInLast;
+    }
+
+    public Boolean getInNewCodePeriod() {
+        return inNewCodePeriod;
+    }
+
+    public void setInNewCodePeriod(Boolean inNewCodePeriod) {
+        this.inNewCodePeriod = inNewCodePeriod;
+    }
+
+    public List<String> getAdditionalFields() {
+        return additionalFields;
+    }
+
+    public void setAdditionalFields(List<String> additionalFields) {
+        this.additionalFields = additionalFields;
+    }
+
+    public List<String> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(List<String> facets) {
+        this.facets = facets;
+    }
+
+    public String getS() {
+        return s;
+    }
+
+    public void setS(String s) {
+        this.s = s;
+    }
+
+    public Boolean getAsc() {
+        return asc;
+    }
+
+    public void setAsc(Boolean asc) {
+        this.asc = asc;
+    }
+
+    public IssueFilter withComponentKeys(List<String> componentKeys) {
+        this.componentKeys = componentKeys;
+        return (this);
+    }
+
+    public IssueFilter withProjects(List<String> projects) {
+        this.projects = projects;
+        return (this);
+    }
+
+    public IssueFilter withBranch(String branch) {
+        this.branch = branch;
+        return (this);
+    }
+
+    public IssueFilter withPullRequest(String pullRequest) {
+        this.pullRequest = pullRequest;
+        return (this);
+    }
+
+    public IssueFilter withIssues(List<String> issues) {
+        this.issues = issues;
+        return (this);
+    }
+
+    public IssueFilter withSeverities(List<String> severities) {
+        this.severities = severities;
+        return (this);
+    }
+
+    public IssueFilter withStatuses(List<String> statuses) {
+        this.statuses = statuses;
+        return (this);
+    }
+
+    public IssueFilter withResolutions(List<String> resolutions) {
+        this.resolutions = resolutions;
+        return (this);
+    }
+
+    public IssueFilter withResolved(Boolean resolved) {
+        this.resolved = resolved;
+        return (this);
+    }
+
+    public IssueFilter withTypes(List<String> types) {
+        this.types = types;
+        return (this);
+    }
+
+    public IssueFilter withRules(List<String> rules) {
+        this.rules = rules;
+        return (this);
+    }
+
+    public IssueFilter withTags(List<String> tags) {
+        this.tags = tags;
+        return (this);
+    }
+
+    public IssueFilter withAssignees(List<String> assignees) {
+        this.assignees = assignees;
+        return (this);
+    }
+
+    public IssueFilter withAuthors(List<String> authors) {
+        this.authors = authors;
+        return (this);
+    }
+
+    public IssueFilter withLanguages(List<String> languages) {
+        this.languages = languages;
+        return (this);
+    }
+
+    public IssueFilter withCreatedAfter(Date createdAfter) {
+        this.createdAfter = createdAfter;
+        return (this);
+    }
+
+    public IssueFilter withCreatedBefore(Date createdBefore) {
+        this.createdBefore = createdBefore;
+        return (this);
+    }
+
+    public IssueFilter withCreatedInLast(String createdInLast) {
+        this.createdInLast = createdInLast;
+        return (this);
+    }
+
+    public IssueFilter withInNewCodePeriod(Boolean inNewCodePeriod) {
+        this.inNewCodePeriod = inNewCodePeriod;
+        return (this);
+    }
+
+    public IssueFilter withAdditionalFields(List<String> additionalFields) {
+        this.additionalFields = additionalFields;
+        return (this);
+    }
+
+    public IssueFilter withFacets(List<String> facets) {
+        this.facets = facets;
+        return (this);
+    }
+
+    public IssueFilter withS(String s) {
+        this.s = s;
+        return (this);
+    }
+
+    public IssueFilter withAsc(Boolean asc) {
+        this.asc = asc;
+        return (this);
+    }
+
+    /**
+     * Create a copy of this filter.
+     *
+     * @return a new IssueFilter with the same criteria as this instance
+     */
+    public IssueFilter copy() {
+        return (new IssueFilter()
+            .withComponentKeys(componentKeys)
+            .withProjects(projects)
+            .withBranch(branch)
+            .withPullRequest(pullRequest)
+            .withIssues(issues)
+            .withSeverities(severities)
+            .withStatuses(statuses)
+            .withResolutions(resolutions)
+            .withResolved(resolved)
+            .withTypes(types)
+            .withRules(rules)
+            .withTags(tags)
+            .withAssignees(assignees)
+            .withAuthors(authors)
+            .withLanguages(languages)
+            .withCreatedAfter(createdAfter)
+            .withCreatedBefore(createdBefore)
+            .withCreatedInLast(createdInLast)
+            .withInNewCodePeriod(inNewCodePeriod)
+            .withAdditionalFields(additionalFields)
+            .withFacets(facets)
+            .withS(s)
+            .withAsc(asc));
+    }
+
+    /**
+     * Get the form params specified by this filter.
+     *
+     * @return a SonarApiForm instance holding the form parameters for this IssueFilter instance
+     */
+    public SonarApiForm getQueryParams() {
+
+        SonarApiForm form = new SonarApiForm()
+            .withParam("componentKeys", join(componentKeys))
+            .withParam("projects", join(projects))
+            .withParam("branch", branch)
+            .withParam("pullRequest", pullRequest)
+            .withParam("issues", join(issues))
+            .withParam("severities", join(severities))
+            .withParam("statuses", join(statuses))
+            .withParam("resolutions", join(resolutions))
+            .withParam("resolved", resolved)
+            .withParam("types", join(types))
+            .withParam("rules", join(rules))
+            .withParam("tags", join(tags))
+            .withParam("assignees", join(assignees))
+            .withParam("languages", join(languages))
+            .withParam("createdAfter", createdAfter)
+            .withParam("createdBefore", createdBefore)
+            .withParam("createdInLast", createdInLast)
+            .withParam("inNewCodePeriod", inNewCodePeriod)
+            .withParam("additionalFields", join(additionalFields))
+            .withParam("facets", join(facets))
+            .withParam("s", s)
+            .withParam("asc", asc);
+
+        // Unlike the other multi-valued params, author is repeated once per value
+        if (authors != null) {
+            authors.forEach(author -> form.param("author", author));
+        }
+
+        return (form);
+    }
+
+    /**
+     * Get the form params specified by this filter for the specified page.
+     *
+     * @param page the 1-based index of the page to get
+     * @param perPage the number of issues per page
+     * @return a SonarApiForm instance holding the form parameters for this IssueFilter instance
+     */
+    public SonarApiForm getQueryParams(int page, int perPage) {
+        return (getQueryParams()
+            .withParam(Constants.PAGE_INDEX_PARAM, page)
+            .withParam(Constants.PAGE_SIZE_PARAM, perPage));
+    }
+
+    private static String join(List<String> values) {
+        return (values != null && !values.isEmpty() ? String.join(",", values) : null);
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.sonarnext.api.models;
+
+import java.util.List;
+
+/**
+ * A page of api/issues/search. The components, rules and users the additionalFields can add to the response are not kept.
+ */
+public class IssueSearchResult {
+
+    private Paging paging;
+    private Long effortTotal;
+    private List<Issue> issues;
+    private List<Facet> facets;
+
+    public Paging getPaging() {
+        return paging;
+    }
+
+    public void setPaging(Paging paging) {
+        this.paging = paging;
+    }
+
+    public Long getEffortTotal() {
+        return effortTotal;
+    }
+
+    public void setEffortTotal(Long effortTotal) {
+        this.effortTotal = effortTotal;
+    }
+
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(List<Issue> issues) {
+        this.issues = issues;
+    }
+
+    public List<Facet> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(List<Facet> facets) {
+        this.facets = facets;
+    }
+}
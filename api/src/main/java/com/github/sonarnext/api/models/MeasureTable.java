@@ -0,0 +1,266 @@
+package com.github.sonarnext.api.models;
+
+import java.util.*;
+
+/**
+ * <p>A columnar store of the numeric measures of many components. Each metric has its own primitive double
+ * array indexed by the row of the component, so a table of millions of components holds one double per
+ * measure instead of one object per measure.</p>
+ *
+ * <p>A measure that is not present, or that is not numeric (for example the quality gate status or the
+ * quality gate details), is stored as {@link Double#NaN}. New code measures are stored under their metric key
+ * with the value of the new code period.</p>
+ *
+ * <p>This class is not thread safe.</p>
+ */
+public class MeasureTable {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final List<String> metrics;
+    private final Map<String, Integer> metricIndexes;
+    private String[] componentKeys;
+    private double[][] columns;
+    private int size;
+
+    // Built on the first call to indexOf() and kept up to date by addRow() from then on
+    private Map<String, Integer> rowIndexes;
+
+    /**
+     * Creates an empty table for the specified metrics.
+     *
+     * @param metrics the keys of the metrics, the column of each metric is its index in this list
+     */
+    public MeasureTable(List<String> metrics) {
+        this(metrics, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table for the specified metrics, with room for the specified number of components.
+     *
+     * @param metrics the keys of the metrics, the column of each metric is its index in this list
+     * @param initialCapacity the number of components the table can hold before it has to grow
+     */
+    public MeasureTable(List<String> metrics, int initialCapacity) {
+
+        this.metrics = Collections.unmodifiableList(new ArrayList<>(metrics));
+        metricIndexes = new HashMap<>(metrics.size() * 2);
+        for (int i = 0; i < this.metrics.size(); i++) {
+            if (metricIndexes.putIfAbsent(this.metrics.get(i), i) != null) {
+                throw new IllegalArgumentException("Duplicate metric: " + this.metrics.get(i));
+            }
+        }
+
+        int capacity = Math.max(initialCapacity, 1);
+        componentKeys = new String[capacity];
+        columns = new double[this.metrics.size()][capacity];
+    }
+
+    /**
+     * Get the keys of the metrics of this table, in column order.
+     *
+     * @return an unmodifiable List of the metric keys
+     */
+    public List<String> getMetrics() {
+        return (metrics);
+    }
+
+    /**
+     * Get the column of a metric.
+     *
+     * @param metric the key of the metric
+     * @return the column of the metric, or -1 if the metric is not in this table
+     */
+    public int getMetricIndex(String metric) {
+        Integer index = metricIndexes.get(metric);
+        return (index != null ? index : -1);
+    }
+
+    /**
+     * Get the number of components in this table.
+     *
+     * @return the number of components in this table
+     */
+    public int size() {
+        return (size);
+    }
+
+    /**
+     * Get the key of the component of a row.
+     *
+     * @param row the row of the component
+     * @return the key of the component
+     */
+    public String getComponentKey(int row) {
+        checkRow(row);
+        return (componentKeys[row]);
+    }
+
+    /**
+     * Get the row of a component. The first call builds an index of the component keys,
+     * which is then kept up to date as components are added.
+     *
+     * @param componentKey the key of the component
+     * @return the row of the component, or -1 if the component is not in this table
+     */
+    public int indexOf(String componentKey) {
+
+        if (rowIndexes == null) {
+            rowIndexes = new HashMap<>(Math.max(size * 2, DEFAULT_CAPACITY));
+            for (int row = 0; row < size; row++) {
+                rowIndexes.putIfAbsent(componentKeys[row], row);
+            }
+        }
+
+        Integer row = rowIndexes.get(componentKey);
+        return (row != null ? row : -1);
+    }
+
+    /**
+     * Adds a component to this table, with all its measures missing.
+     *
+     * @param componentKey the key of the component
+     * @return the row of the component
+     */
+    public int addRow(String componentKey) {
+
+        if (size == componentKeys.length) {
+            ensureCapacity(size + (size >> 1) + 1);
+        }
+
+        int row = size++;
+        componentKeys[row] = componentKey;
+        for (double[] column : columns) {
+            column[row] = Double.NaN;
+        }
+
+        if (rowIndexes != null) {
+            rowIndexes.putIfAbsent(componentKey, row);
+        }
+
+        return (row);
+    }
+
+    /**
+     * Adds all the components of another table with the same metrics to this table.
+     *
+     * @param other the table holding the components to add
+     */
+    public void addAll(MeasureTable other) {
+
+        if (!metrics.equals(other.metrics)) {
+            throw new IllegalArgumentException("The tables do not have the same metrics");
+        }
+
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.componentKeys, 0, componentKeys, size, other.size);
+        for (int i = 0; i < columns.length; i++) {
+            System.arraycopy(other.columns[i], 0, columns[i], size, other.size);
+        }
+
+        if (rowIndexes != null) {
+            for (int row = 0; row < other.size; row++) {
+                rowIndexes.putIfAbsent(other.componentKeys[row], size + row);
+            }
+        }
+
+        size += other.size;
+    }
+
+    /**
+     * Get the value of a measure.
+     *
+     * @param row the row of the component
+     * @param metricIndex the column of the metric
+     * @return the value of the measure, or NaN if it is missing or not numeric
+     */
+    public double getValue(int row, int metricIndex) {
+        checkRow(row);
+        return (columns[metricIndex][row]);
+    }
+
+    /**
+     * Get the value of a measure.
+     *
+     * @param row the row of the component
+     * @param metric the key of the metric
+     * @return the value of the measure, or NaN if it is missing, not numeric or the metric is not in this table
+     */
+    public double getValue(int row, String metric) {
+        int metricIndex = getMetricIndex(metric);
+        return (metricIndex >= 0 ? getValue(row, metricIndex) : Double.NaN);
+    }
+
+    /**
+     * Sets the value of a measure.
+     *
+     * @param row the row of the component
+     * @param metricIndex the column of the metric
+     * @param value the value of the measure, NaN if it is missing
+     */
+    public void setValue(int row, int metricIndex, double value) {
+        checkRow(row);
+        columns[metricIndex][row] = value;
+    }
+
+    /**
+     * Get the values of a metric for all the components. The returned array is the one backing this table,
+     * it is not copied, only its first {@link #size()} values are valid and it is replaced when the table grows.
+     *
+     * @param metricIndex the column of the metric
+     * @return the array holding the values of the metric, indexed by row
+     */
+    public double[] getColumn(int metricIndex) {
+        return (columns[metricIndex]);
+    }
+
+    /**
+     * Get the values of a metric for all the components, see {@link #getColumn(int)}.
+     *
+     * @param metric the key of the metric
+     * @return the array holding the values of the metric, indexed by row
+     * @throws IllegalArgumentException if the metric is not in this table
+     */
+    public double[] getColumn(String metric) {
+
+        int metricIndex = getMetricIndex(metric);
+        if (metricIndex < 0) {
+            throw new IllegalArgumentException("Unknown metric: " + metric);
+        }
+
+        return (columns[metricIndex]);
+    }
+
+    /**
+     * Makes sure this table can hold the specified number of components without growing.
+     *
+     * @param capacity the number of components
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > componentKeys.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Releases the room reserved for components that were not added.
+     */
+    public void trimToSize() {
+        if (size < componentKeys.length) {
+            resize(Math.max(size, 1));
+        }
+    }
+
+    private void resize(int capacity) {
+        componentKeys = Arrays.copyOf(componentKeys, capacity);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.sonarnext.api.models;
+
+/**
+ * The paging object returned by the paginated SonarQube web services.
+ */
+public class Paging {
+
+    private Integer pageIndex;
+    private Integer pageSize;
+    private Integer total;
+
+    public Integer getPageIndex() {
+        return pageIndex;
+    }
+
+    public void setPageIndex(Integer pageIndex) {
+        this.pageIndex = pageIndex;
+    }
+
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public void setTotal(Integer total) {
+        this.total = total;
+    }
+}
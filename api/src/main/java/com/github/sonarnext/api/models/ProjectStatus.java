@@ -0,0 +1,166 @@
+package com.github.sonarnext.api.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * The quality gate status returned by api/qualitygates/project_status.
+ */
+public class ProjectStatus {
+
+    /** The status of a passed quality gate or condition. */
+    public static final String OK = "OK";
+
+    /** The status of a failed quality gate or condition. */
+    public static final String ERROR = "ERROR";
+
+    private Status projectStatus;
+
+    public Status getProjectStatus() {
+        return projectStatus;
+    }
+
+    public void setProjectStatus(Status projectStatus) {
+        this.projectStatus = projectStatus;
+    }
+
+    public static class Status {
+
+        private String status;
+        private Boolean ignoredConditions;
+        private List<Condition> conditions;
+        private Period period;
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public Boolean getIgnoredConditions() {
+            return ignoredConditions;
+        }
+
+        public void setIgnoredConditions(Boolean ignoredConditions) {
+            this.ignoredConditions = ignoredConditions;
+        }
+
+        public List<Condition> getConditions() {
+            return conditions;
+        }
+
+        public void setConditions(List<Condition> conditions) {
+            this.conditions = conditions;
+        }
+
+        public Period getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Period period) {
+            this.period = period;
+        }
+
+        /**
+         * Tells whether the quality gate passed.
+         *
+         * @return true if the status is {@link #OK}
+         */
+        @JsonIgnore
+        public boolean isPassed() {
+            return (OK.equals(status));
+        }
+    }
+
+    public static class Condition {
+
+        private String status;
+        private String metricKey;
+        private String comparator;
+        private Integer periodIndex;
+        private String errorThreshold;
+        private String actualValue;
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getMetricKey() {
+            return metricKey;
+        }
+
+        public void setMetricKey(String metricKey) {
+            this.metricKey = metricKey;
+        }
+
+        public String getComparator() {
+            return comparator;
+        }
+
+        public void setComparator(String comparator) {
+            this.comparator = comparator;
+        }
+
+        public Integer getPeriodIndex() {
+            return periodIndex;
+        }
+
+        public void setPeriodIndex(Integer periodIndex) {
+            this.periodIndex = periodIndex;
+        }
+
+        public String getErrorThreshold() {
+            return errorThreshold;
+        }
+
+        public void setErrorThreshold(String errorThreshold) {
+            this.errorThreshold = errorThreshold;
+        }
+
+        public String getActualValue() {
+            return actualValue;
+        }
+
+        public void setActualValue(String actualValue) {
+            this.actualValue = actualValue;
+        }
+    }
+
+    public static class Period {
+
+        private String mode;
+        private String date;
+        private String parameter;
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        public void setDate(String date) {
+            this.date = date;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        public void setParameter(String parameter) {
+            this.parameter = parameter;
+        }
+    }
+}
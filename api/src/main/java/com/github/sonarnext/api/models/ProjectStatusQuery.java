@@ -0,0 +1,136 @@
+package com.github.sonarnext.api.models;
+
+import com.github.sonarnext.api.SonarApiForm;
+
+import java.util.Objects;
+
+/**
+ * Identifies the quality gate status to get from api/qualitygates/project_status, either the status of an
+ * analysis or the current status of a project, branch or pull request. Instances are immutable and can be
+ * used as keys.
+ */
+public final class ProjectStatusQuery {
+
+    private final String analysisId;
+    private final String projectKey;
+    private final String branch;
+    private final String pullRequest;
+
+    private ProjectStatusQuery(String analysisId, String projectKey, String branch, String pullRequest) {
+        this.analysisId = analysisId;
+        this.projectKey = projectKey;
+        this.branch = branch;
+        this.pullRequest = pullRequest;
+    }
+
+    /**
+     * Get the query for the quality gate status of an analysis.
+     *
+     * @param analysisId the ID of the analysis
+     * @return the ProjectStatusQuery for the analysis
+     */
+    public static ProjectStatusQuery forAnalysis(String analysisId) {
+
+        if (analysisId == null) {
+            throw new RuntimeException("analysisId cannot be null");
+        }
+
+        return (new ProjectStatusQuery(analysisId, null, null, null));
+    }
+
+    /**
+     * Get the query for the quality gate status of the main branch of a project.
+     *
+     * @param projectKey the key of the project
+     * @return the ProjectStatusQuery for the project
+     */
+    public static ProjectStatusQuery forProject(String projectKey) {
+        return (forBranch(projectKey, null));
+    }
+
+    /**
+     * Get the query for the quality gate status of a branch of a project.
+     *
+     * @param projectKey the key of the project
+     * @param branch the name of the branch, null for the main branch
+     * @return the ProjectStatusQuery for the branch
+     */
+    public static ProjectStatusQuery forBranch(String projectKey, String branch) {
+
+        if (projectKey == null) {
+            throw new RuntimeException("projectKey cannot be null");
+        }
+
+        return (new ProjectStatusQuery(null, projectKey, branch, null));
+    }
+
+    /**
+     * Get the query for the quality gate status of a pull request of a project.
+     *
+     * @param projectKey the key of the project
+     * @param pullRequest the ID of the pull request
+     * @return the ProjectStatusQuery for the pull request
+     */
+    public static ProjectStatusQuery forPullRequest(String projectKey, String pullRequest) {
+
+        if (projectKey == null || pullRequest == null) {
+            throw new RuntimeException("projectKey and pullRequest cannot be null");
+        }
+
+        return (new ProjectStatusQuery(null, projectKey, null, pullRequest));
+    }
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public String getPullRequest() {
+        return pullRequest;
+    }
+
+    /**
+     * Get the form params specified by this query.
+     *
+     * @return a SonarApiForm instance holding the form parameters for this ProjectStatusQuery instance
+     */
+    public SonarApiForm getQueryParams() {
+        return (new SonarApiForm()
+            .withParam("analysisId", analysisId)
+            .withParam("projectKey", projectKey)
+            .withParam("branch", branch)
+            .withParam("pullRequest", pullRequest));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj) {
+            return (true);
+        } else if (!(obj instanceof ProjectStatusQuery)) {
+            return (false);
+        }
+
+        ProjectStatusQuery other = (ProjectStatusQuery) obj;
+        return (Objects.equals(analysisId, other.analysisId) && Objects.equals(projectKey, other.projectKey) &&
+            Objects.equals(branch, other.branch) && Objects.equals(pullRequest, other.pullRequest));
+    }
+
+    @Override
+    public int hashCode() {
+        return (Objects.hash(analysisId, projectKey, branch, pullRequest));
+    }
+
+    @Override
+    public String toString() {
+        return (analysisId != null ? "analysis " + analysisId : projectKey +
+            (branch != null ? " branch " + branch : "") + (pullRequest != null ? " pull request " + pullRequest : ""));
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.sonarnext.api.transport;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+
+/**
+ * <p>A Jersey ConnectorProvider that sends requests with the JDK java.net.http HttpClient. Requests are
+ * multiplexed over a single HTTP/2 connection when the server supports it, and asynchronous requests do not
+ * hold a thread while waiting for the server.</p>
+ *
+ * <pre>
+ * SonarApi sonarApi = new SonarApi(hostUrl, token, null)
+ *     .withConnectorProvider(new JavaHttpClientConnectorProvider());
+ * </pre>
+ *
+ * <p>Requires Java 11 or later. This is the Java 8 version of the class, the implementation is in the Java 11
+ * layer of the multi-release jar: on Java 8 {@link #isAvailable()} returns false and no connector can be
+ * created.</p>
+ */
+public class JavaHttpClientConnectorProvider implements ConnectorProvider {
+
+    /**
+     * Creates a provider that prefers HTTP/2 and falls back to HTTP/1.1.
+     */
+    public JavaHttpClientConnectorProvider() {
+        this(true);
+    }
+
+    /**
+     * Creates a provider that uses HTTP/2 or HTTP/1.1.
+     *
+     * @param http2 if true HTTP/2 is preferred, otherwise HTTP/1.1 is used
+     */
+    public JavaHttpClientConnectorProvider(boolean http2) {
+    }
+
+    /**
+     * Returns true if the java.net.http HttpClient is available in this JVM, otherwise returns false.
+     *
+     * @return true if the java.net.http HttpClient is available in this JVM
+     */
+    public static boolean isAvailable() {
+        return (false);
+    }
+
+    /**
+     * Always fails, the java.net.http HttpClient requires Java 11 or later.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public Connector getConnector(Client client, Configuration runtimeConfig) {
+        throw new UnsupportedOperationException("The java.net.http connector requires Java 11 or later, running on Java " +
+            System.getProperty("java.specification.version"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.sonarnext.api.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the bandwidth savings of compressed responses.
+ */
+public class CompressionStats {
+
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+
+    void add(long wireBytes, long decodedBytes) {
+        this.responses.increment();
+        this.wireBytes.add(wireBytes);
+        this.decodedBytes.add(decodedBytes);
+    }
+
+    /**
+     * Get the number of compressed responses that were decoded.
+     *
+     * @return the number of compressed responses that were decoded
+     */
+    public long getResponseCount() {
+        return (responses.sum());
+    }
+
+    /**
+     * Get the number of compressed bytes received for the decoded responses.
+     *
+     * @return the number of compressed bytes received
+     */
+    public long getWireBytes() {
+        return (wireBytes.sum());
+    }
+
+    /**
+     * Get the number of bytes the decoded responses expanded to.
+     *
+     * @return the number of decoded bytes
+     */
+    public long getDecodedBytes() {
+        return (decodedBytes.sum());
+    }
+
+    /**
+     * Get the number of bytes that compression saved on the wire.
+     *
+     * @return the number of bytes saved
+     */
+    public long getSavedBytes() {
+        return (getDecodedBytes() - getWireBytes());
+    }
+
+    /**
+     * Get the ratio of compressed to decoded bytes, for example 0.2 when responses shrank to a fifth.
+     *
+     * @return the compression ratio, or 1.0 if no compressed response was decoded
+     */
+    public double getCompressionRatio() {
+        long decoded = getDecodedBytes();
+        return (decoded > 0 ? (double) getWireBytes() / decoded : 1.0);
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public void reset() {
+        responses.reset();
+        wireBytes.reset();
+        decodedBytes.reset();
+    }
+
+    @Override
+    public String toString() {
+        return ("[responses: " + getResponseCount() + "; wire: " + getWireBytes() +
+                "; decoded: " + getDecodedBytes() + "; saved: " + getSavedBytes() + "]");
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.sonarnext.api.utils;
+
+/**
+ * A snapshot of the connection counts of the pooled transport.
+ */
+public class ConnectionPoolStats {
+
+    private final int leased;
+    private final int pending;
+    private final int available;
+    private final int max;
+
+    public ConnectionPoolStats(int leased, int pending, int available, int max) {
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+        this.max = max;
+    }
+
+    /**
+     * Get the number of connections currently used by a request.
+     *
+     * @return the number of leased connections
+     */
+    public int getLeased() {
+        return (leased);
+    }
+
+    /**
+     * Get the number of requests waiting for a connection.
+     *
+     * @return the number of pending connection requests
+     */
+    public int getPending() {
+        return (pending);
+    }
+
+    /**
+     * Get the number of idle persistent connections.
+     *
+     * @return the number of available connections
+     */
+    public int getAvailable() {
+        return (available);
+    }
+
+    /**
+     * Get the maximum number of connections of the pool.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMax() {
+        return (max);
+    }
+
+    @Override
+    public String toString() {
+        return ("[leased: " + leased + "; pending: " + pending + "; available: " + available + "; max: " + max + "]");
+    }
+}
@@ -6,6 +6,7 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
 import java.time.temporal.ChronoField;
 import java.util.Calendar;
 import java.util.Date;
@@ -28,14 +29,26 @@ public class ISO8601 {
     public static final String UTC_PATTERN = "yyyy-MM-dd HH:mm:ss 'UTC'";
     public static final String DATE_ONLY_PATTERN = "yyyy-MM-dd";
 
-    private static final DateTimeFormatter ODT_WITH_MSEC_PARSER = new DateTimeFormatterBuilder().appendPattern("yyyy-MM-dd[['T'][ ]HH:mm:ss.SSS[ ][XXXXX][XXXX]]").toFormatter();
-    private static final DateTimeFormatter ODT_PARSER = new DateTimeFormatterBuilder().appendPattern("yyyy-MM-dd[['T'][ ]HH:mm:ss[.SSS][ ][XXX][X]]")
+    /** Returned by {@link #parseEpochMillis(char[], int, int)} when the text is not in one of the fast path formats. */
+    public static final long NOT_PARSED = Long.MIN_VALUE;
+
+    // The longest text handled by the fast path, yyyy-MM-dd'T'HH:mm:ss.SSS+HH:MM
+    private static final int MAX_FAST_PATH_LENGTH = 29;
+
+    private static final ThreadLocal<char[]> scratchChars = ThreadLocal.withInitial(() -> new char[MAX_FAST_PATH_LENGTH]);
+
+    // Strict, so that a date such as 2024-02-30 is rejected instead of being resolved to the last day of the month
+    private static final DateTimeFormatter ODT_WITH_MSEC_PARSER = new DateTimeFormatterBuilder().appendPattern("uuuu-MM-dd[['T'][ ]HH:mm:ss.SSS[ ][XXXXX][XXXX]]")
+        .toFormatter()
+        .withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter ODT_PARSER = new DateTimeFormatterBuilder().appendPattern("uuuu-MM-dd[['T'][ ]HH:mm:ss[.SSS][ ][XXX][X]]")
         .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
         .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
         .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
         .parseDefaulting(ChronoField.MILLI_OF_SECOND, 0)
         .parseDefaulting(ChronoField.OFFSET_SECONDS, 0)
-        .toFormatter();
+        .toFormatter()
+        .withResolverStyle(ResolverStyle.STRICT);
 
     // Set up ThreadLocal storage to save a thread local SimpleDateFormat keyed with the format string
     private static final class SafeDateFormatter {
@@ -117,6 +130,22 @@ public class ISO8601 {
                 SafeDateFormatter.getDateFormat(OUTPUT_PATTERN).format(date));
     }
 
+    /**
+     * Get a yyyy-MM-dd'T'HH:mm:ssZ formatted string in UTC for the provided Date instance, for
+     * example 2024-01-02T10:11:12+0000. This is the date-time format of the SonarQube web services.
+     *
+     * @param date the Date instance to get the formatted string for
+     * @return a yyyy-MM-dd'T'HH:mm:ssZ formatted string for the provided Date instance, or null if date is null
+     */
+    public static String toOffsetString(Date date) {
+
+        if (date == null) {
+            return (null);
+        }
+
+        return (SafeDateFormatter.getDateFormat(PATTERN).format(date));
+    }
+
     /**
      * Get a string that includes the date only in yyyy-mm-ss format.
      *
@@ -142,12 +171,176 @@ public class ISO8601 {
         return (toString(date, true));
     }
 
+    /**
+     * Parses the timestamp formats returned by SonarQube in a single pass without allocating, for example
+     * 2024-01-02T10:11:12+0000. Accepted are yyyy-MM-dd, optionally followed by 'T'HH:mm:ss with an optional
+     * .SSS fraction and a Z, +HH, +HHMM or +HH:MM offset, a missing offset is taken as UTC. Anything else, including
+     * invalid dates such as 2024-02-30, is left to the formatter based methods of this class, which reject invalid dates.
+     *
+     * @param text the buffer holding the timestamp
+     * @param offset the index of the first character of the timestamp in the buffer
+     * @param length the number of characters of the timestamp
+     * @return the milliseconds since the epoch, or {@link #NOT_PARSED} if the text is not in one of the accepted formats
+     */
+    public static long parseEpochMillis(char[] text, int offset, int length) {
+
+        if (length != 10 && (length < 19 || length > MAX_FAST_PATH_LENGTH)) {
+            return (NOT_PARSED);
+        }
+
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) ||
+                text[offset + 4] != '-' || text[offset + 7] != '-') {
+            return (NOT_PARSED);
+        }
+
+        long millis = daysSinceEpoch(year, month, day) * 86400000L;
+        if (length == 10) {
+            return (millis);
+        }
+
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 ||
+                text[offset + 10] != 'T' || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return (NOT_PARSED);
+        }
+
+        millis += hour * 3600000L + minute * 60000L + second * 1000L;
+
+        int pos = offset + 19;
+        int end = offset + length;
+        if (pos < end && text[pos] == '.') {
+            int msec = (pos + 4 <= end ? digits(text, pos + 1, 3) : -1);
+            if (msec < 0) {
+                return (NOT_PARSED);
+            }
+
+            millis += msec;
+            pos += 4;
+        }
+
+        if (pos == end) {
+            return (millis);
+        }
+
+        char sign = text[pos];
+        if (sign == 'Z') {
+            return (pos + 1 == end ? millis : NOT_PARSED);
+        } else if (sign != '+' && sign != '-') {
+            return (NOT_PARSED);
+        }
+
+        int remaining = end - pos - 1;
+        int offsetHours = (remaining >= 2 ? digits(text, pos + 1, 2) : -1);
+        int offsetMinutes;
+        if (remaining == 2) {
+            offsetMinutes = 0;
+        } else if (remaining == 4) {
+            offsetMinutes = digits(text, pos + 3, 2);
+        } else if (remaining == 5 && text[pos + 3] == ':') {
+            offsetMinutes = digits(text, pos + 4, 2);
+        } else {
+            return (NOT_PARSED);
+        }
+
+        if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+            return (NOT_PARSED);
+        }
+
+        long offsetMillis = offsetHours * 3600000L + offsetMinutes * 60000L;
+        return (sign == '+' ? millis - offsetMillis : millis + offsetMillis);
+    }
+
+    /**
+     * Parses an ISO8601 formatted string and returns the milliseconds since the epoch. The SonarQube timestamp
+     * formats are parsed by {@link #parseEpochMillis(char[], int, int)}, other formats by {@link #toInstant(String)}.
+     *
+     * @param dateTimeString the ISO8601 formatted string, must not be null
+     * @return the milliseconds since the epoch for the ISO8601 formatted string
+     * @throws ParseException if the provided string is not in the proper format
+     */
+    public static long toEpochMillis(String dateTimeString) throws ParseException {
+
+        int length = dateTimeString.length();
+        if (length <= MAX_FAST_PATH_LENGTH) {
+            char[] chars = scratchChars.get();
+            dateTimeString.getChars(0, length, chars, 0);
+            long millis = parseEpochMillis(chars, 0, length);
+            if (millis != NOT_PARSED) {
+                return (millis);
+            }
+        }
+
+        return (toInstant(dateTimeString).toEpochMilli());
+    }
+
+    /**
+     * Parses an ISO8601 formatted string and returns the milliseconds since the epoch, without throwing
+     * when the string is null or not in the proper format.
+     *
+     * @param dateTimeString the ISO8601 formatted string, can be null
+     * @param defaultValue the value returned when dateTimeString is null or cannot be parsed
+     * @return the milliseconds since the epoch for the ISO8601 formatted string, or defaultValue
+     */
+    public static long toEpochMillis(String dateTimeString, long defaultValue) {
+
+        if (dateTimeString == null) {
+            return (defaultValue);
+        }
+
+        try {
+            return (toEpochMillis(dateTimeString));
+        } catch (ParseException | RuntimeException e) {
+            return (defaultValue);
+        }
+    }
+
+    private static int digits(char[] text, int offset, int count) {
+
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return (-1);
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return (value);
+    }
+
+    private static int daysInMonth(int year, int month) {
+
+        if (month == 2) {
+            return ((year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28);
+        }
+
+        return (month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31);
+    }
+
+    // Days from 1970-01-01 to the proleptic Gregorian date, year is 0 to 9999
+    private static long daysSinceEpoch(int year, int month, int day) {
+
+        int y = (month <= 2 ? year - 1 : year);
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (era * 146097L + dayOfEra - 719468);
+    }
+
     /**
      * Parses an ISO8601 formatted string a returns an Instant instance.
      * 
      * @param dateTimeString the ISO8601 formatted string
      * @return an Instant instance for the ISO8601 formatted string
      * @throws ParseException if the provided string is not in the proper format
+     * @throws java.time.format.DateTimeParseException if the provided string is not in the proper format or is not a valid date
      */
     public static Instant toInstant(String dateTimeString) throws ParseException {
 
@@ -182,8 +375,7 @@ public class ISO8601 {
      * @throws ParseException if the provided string is not in the proper format
      */
     public static Date toDate(String dateTimeString) throws ParseException {
-        Instant instant = toInstant(dateTimeString);
-        return (instant != null ? Date.from(instant) : null);
+        return (dateTimeString != null ? new Date(toEpochMillis(dateTimeString)) : null);
     }
 
     /**
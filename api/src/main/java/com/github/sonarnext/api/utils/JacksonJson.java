@@ -3,20 +3,26 @@ package com.github.sonarnext.api.utils;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.*;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapType;
 import com.fasterxml.jackson.jaxrs.json.JacksonJaxbJsonProvider;
+import com.github.sonarnext.api.models.Paging;
 
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.ext.ContextResolver;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
  * Jackson JSON Configuration and utility class.
@@ -31,14 +37,30 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
         iso8601UtcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
     }
 
-    private final ObjectMapper objectMapper;
+    /** The accessor module used on Java 11 and later, see {@link #enableBytecodeAccessors()}. */
+    public static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+    /** The accessor module used before Java 11, see {@link #enableBytecodeAccessors()}. */
+    public static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    private volatile ObjectMapper objectMapper;
+
+    // Pre-built readers and writers, keyed by the type they were built for
+    private final ConcurrentMap<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
 
     public JacksonJson() {
+        objectMapper = createObjectMapper();
+        setMapper(objectMapper);
+    }
+
+    private static ObjectMapper createObjectMapper() {
 
-        objectMapper = new ObjectMapper();
+        ObjectMapper objectMapper = new ObjectMapper();
 
+        // SonarQube uses camelCase names that match the bean properties of the models, so no naming
+        // strategy is set and the property names are taken as-is when a deserializer is built
         objectMapper.setSerializationInclusion(Include.NON_NULL);
-        objectMapper.setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE);
 
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
         objectMapper.configure(SerializationFeature.WRITE_ENUMS_USING_TO_STRING, true);
@@ -50,7 +72,7 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
         module.addDeserializer(Date.class, new JsonDateDeserializer());
         objectMapper.registerModule(module);
 
-        setMapper(objectMapper);
+        return (objectMapper);
     }
 
     @Override
@@ -67,6 +89,109 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
         return (objectMapper);
     }
 
+    /**
+     * Gets the cached ObjectReader for the specified type, building it on first use.
+     *
+     * @param type the type of the values to read
+     * @return the ObjectReader for the specified type
+     */
+    public ObjectReader getReader(Class<?> type) {
+        return (getReader(objectMapper.constructType(type)));
+    }
+
+    /**
+     * Gets the cached ObjectReader for the specified type, building it on first use.
+     *
+     * @param type the type of the values to read
+     * @return the ObjectReader for the specified type
+     */
+    public ObjectReader getReader(JavaType type) {
+        return (readers.computeIfAbsent(type, objectMapper::readerFor));
+    }
+
+    /**
+     * Gets the cached pretty printing ObjectWriter for the specified type, building it on first use.
+     *
+     * @param type the type of the values to write
+     * @return the ObjectWriter for the specified type
+     */
+    public ObjectWriter getWriter(Class<?> type) {
+        return (writers.computeIfAbsent(type, t -> objectMapper.writerFor(t).withDefaultPrettyPrinter()));
+    }
+
+    /**
+     * Eagerly builds the readers and writers for the specified types, so that the first call that
+     * reads or writes one of them does not pay for the introspection of the type.
+     *
+     * @param types the types to build the readers and writers for
+     */
+    public void warmUp(Class<?>... types) {
+        for (Class<?> type : types) {
+            getReader(type);
+            getReader(objectMapper.getTypeFactory().constructCollectionType(List.class, type));
+            getWriter(type);
+        }
+    }
+
+    /**
+     * Drops all the cached readers and writers, this must be called after the configuration
+     * of the ObjectMapper has been changed.
+     */
+    public void clearCache() {
+        readers.clear();
+        writers.clear();
+    }
+
+    /**
+     * Replaces the ObjectMapper with one that uses generated accessors instead of reflection to create
+     * the model instances and to get and set their properties. Blackbird is preferred on Java 11 and later,
+     * Afterburner is used on older JVMs, the selected module must be on the classpath as neither is a
+     * required dependency of this library.
+     *
+     * <p>Jackson cannot drop the deserializers it has already built, so a new ObjectMapper is configured
+     * and all cached readers and writers are dropped. Any customization made through {@link #getObjectMapper()}
+     * is lost, and the readers and writers need to be warmed up again.</p>
+     *
+     * @return the name of the registered module, or null if no accessor module is on the classpath
+     */
+    public synchronized String enableBytecodeAccessors() {
+
+        Module module = (JavaPlatform.getFeatureVersion() >= 11 ?
+            loadModule(BLACKBIRD_MODULE, AFTERBURNER_MODULE) : loadModule(AFTERBURNER_MODULE, BLACKBIRD_MODULE));
+        if (module == null) {
+            return (null);
+        }
+
+        ObjectMapper mapper = createObjectMapper();
+        mapper.registerModule(module);
+        objectMapper = mapper;
+        setMapper(mapper);
+
+        synchronized (_readers) {
+            _readers.clear();
+        }
+
+        synchronized (_writers) {
+            _writers.clear();
+        }
+
+        clearCache();
+        return (module.getModuleName());
+    }
+
+    private static Module loadModule(String... classNames) {
+
+        for (String className : classNames) {
+            try {
+                return ((Module) Class.forName(className).getConstructor().newInstance());
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not on the classpath, or not usable on this JVM, try the next one
+            }
+        }
+
+        return (null);
+    }
+
     /**
      * Reads and parses the String containing JSON data and returns a JsonNode tree representation.
      *
@@ -105,8 +230,7 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> T unmarshal(Class<T> returnType, JsonNode tree) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(returnType);
-        return (objectMapper.treeToValue(tree, returnType));
+        return (getReader(returnType).readValue(tree));
     }
 
     /**
@@ -121,8 +245,7 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> T unmarshal(Class<T> returnType, Reader reader) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(returnType);
-        return (objectMapper.readValue(reader, returnType));
+        return (getReader(returnType).readValue(reader));
     }
 
     /**
@@ -137,8 +260,7 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> T unmarshal(Class<T> returnType, String postData) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(returnType);
-        return (objectMapper.readValue(postData, returnType));
+        return (getReader(returnType).readValue(postData));
     }
 
     /**
@@ -153,9 +275,8 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> List<T> unmarshalList(Class<T> returnType, Reader reader) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(null);
         CollectionType javaType = objectMapper.getTypeFactory().constructCollectionType(List.class, returnType);
-        return (objectMapper.readValue(reader, javaType));
+        return (getReader(javaType).readValue(reader));
     }
 
     /**
@@ -170,9 +291,8 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> List<T> unmarshalList(Class<T> returnType, String postData) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(null);
         CollectionType javaType = objectMapper.getTypeFactory().constructCollectionType(List.class, returnType);
-        return (objectMapper.readValue(postData, javaType));
+        return (getReader(javaType).readValue(postData));
     }
 
     /**
@@ -187,8 +307,8 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> Map<String, T> unmarshalMap(Class<T> returnType, Reader reader) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(null);
-        return (objectMapper.readValue(reader, new TypeReference<Map<String, T>>() {}));
+        MapType javaType = objectMapper.getTypeFactory().constructMapType(Map.class, String.class, returnType);
+        return (getReader(javaType).readValue(reader));
     }
 
     /**
@@ -203,8 +323,104 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
      * @throws IOException if an error occurs reading the JSON data
      */
     public <T> Map<String, T> unmarshalMap(Class<T> returnType, String jsonData) throws JsonParseException, JsonMappingException, IOException {
-        ObjectMapper objectMapper = getContext(null);
-        return (objectMapper.readValue(jsonData, new TypeReference<Map<String, T>>() {}));
+        MapType javaType = objectMapper.getTypeFactory().constructMapType(Map.class, String.class, returnType);
+        return (getReader(javaType).readValue(jsonData));
+    }
+
+    /**
+     * Streams the elements of a top-level array field of the JSON object on the InputStream to a consumer.
+     * Only one element is held in memory at a time, all other fields are skipped without being bound.
+     *
+     * @param <T> the generics type of the array elements
+     * @param in the InputStream that contains the JSON data, it is closed on return
+     * @param fieldName the name of the top-level field holding the array
+     * @param elementType an instance of this type class is passed to the consumer for each element
+     * @param consumer the consumer that receives each element as soon as it is parsed
+     * @return the number of elements passed to the consumer
+     * @throws JsonParseException when an error occurs parsing the provided JSON
+     * @throws JsonMappingException if a JSON error occurs
+     * @throws IOException if an error occurs reading the JSON data
+     */
+    public <T> long readArray(InputStream in, String fieldName, Class<T> elementType,
+            Consumer<? super T> consumer) throws JsonParseException, JsonMappingException, IOException {
+
+        long[] count = new long[1];
+        readArray(in, fieldName, elementType, element -> {
+            consumer.accept(element);
+            count[0]++;
+        }, null);
+        return (count[0]);
+    }
+
+    /**
+     * Streams the elements of the items field of a page returned by a paginated SonarQube web service to a
+     * consumer, like {@link #readArray(InputStream, String, Class, Consumer)}, and returns the paging object.
+     * Older web services that return the paging as top-level "p", "ps" and "total" fields are supported as well.
+     *
+     * @param <T> the generics type of the items
+     * @param in the InputStream that contains the JSON data, it is closed on return
+     * @param itemsField the name of the top-level field holding the items
+     * @param itemType an instance of this type class is passed to the consumer for each item
+     * @param consumer the consumer that receives each item as soon as it is parsed
+     * @return the paging object of the page, or null if the page has none
+     * @throws JsonParseException when an error occurs parsing the provided JSON
+     * @throws JsonMappingException if a JSON error occurs
+     * @throws IOException if an error occurs reading the JSON data
+     */
+    public <T> Paging readPage(InputStream in, String itemsField, Class<T> itemType,
+            Consumer<? super T> consumer) throws JsonParseException, JsonMappingException, IOException {
+        Paging[] paging = new Paging[1];
+        readArray(in, itemsField, itemType, consumer, paging);
+        return (paging[0]);
+    }
+
+    private <T> void readArray(InputStream in, String fieldName, Class<T> elementType,
+            Consumer<? super T> consumer, Paging[] paging) throws IOException {
+
+        ObjectReader reader = getReader(elementType);
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (fieldName.equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        consumer.accept(reader.readValue(parser));
+                    }
+                } else if (paging != null && "paging".equals(name) && token == JsonToken.START_OBJECT) {
+                    paging[0] = getReader(Paging.class).readValue(parser);
+                } else if (paging != null && token == JsonToken.VALUE_NUMBER_INT && isLegacyPagingField(name)) {
+                    if (paging[0] == null) {
+                        paging[0] = new Paging();
+                    }
+
+                    setLegacyPagingField(paging[0], name, parser.getIntValue());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    private static boolean isLegacyPagingField(String name) {
+        return ("p".equals(name) || "ps".equals(name) || "total".equals(name));
+    }
+
+    private static void setLegacyPagingField(Paging paging, String name, int value) {
+
+        // The paging object takes precedence when both are present
+        if ("p".equals(name) && paging.getPageIndex() == null) {
+            paging.setPageIndex(value);
+        } else if ("ps".equals(name) && paging.getPageSize() == null) {
+            paging.setPageSize(value);
+        } else if ("total".equals(name) && paging.getTotal() == null) {
+            paging.setTotal(value);
+        }
     }
 
     /**
@@ -220,7 +436,7 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
             throw new IllegalArgumentException("object parameter is null");
         }
 
-        ObjectWriter writer = objectMapper.writer().withDefaultPrettyPrinter();
+        ObjectWriter writer = getWriter(object.getClass());
         String results = null;
         try {
             results = writer.writeValueAsString(object);
@@ -268,6 +484,14 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
         @Override
         public Date deserialize(JsonParser jsonparser, DeserializationContext context) throws IOException, JsonProcessingException {
 
+            if (jsonparser.currentToken() == JsonToken.VALUE_STRING) {
+                long millis = ISO8601.parseEpochMillis(jsonparser.getTextCharacters(),
+                    jsonparser.getTextOffset(), jsonparser.getTextLength());
+                if (millis != ISO8601.NOT_PARSED) {
+                    return (new Date(millis));
+                }
+            }
+
             try {
                 return (ISO8601.toDate(jsonparser.getText()));
             } catch (ParseException e) {
@@ -283,8 +507,8 @@ public class JacksonJson extends JacksonJaxbJsonProvider implements ContextResol
     private static class JacksonJsonSingletonHelper {
         private static final JacksonJson JACKSON_JSON = new JacksonJson();
         static {
-            JACKSON_JSON.objectMapper.setPropertyNamingStrategy(PropertyNamingStrategy.LOWER_CAMEL_CASE);
             JACKSON_JSON.objectMapper.setSerializationInclusion(Include.ALWAYS);
+            JACKSON_JSON.clearCache();
         }
     }
 
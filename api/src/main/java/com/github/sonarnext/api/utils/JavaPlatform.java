@@ -0,0 +1,135 @@
+package com.github.sonarnext.api.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to JVM features that are newer than the Java 8 baseline of this library.
+ *
+ * This is the Java 8 implementation, the multi-release jar layers a Java 17 implementation of this
+ * class (src/main/java17) that is picked up automatically on Java 17 and later.
+ */
+public final class JavaPlatform {
+
+    // Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively, this class can still run on a
+    // JVM with virtual threads when the classes are not loaded from the multi-release jar
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+    private JavaPlatform() {
+    }
+
+    /**
+     * Get the feature version of the running JVM, for example 8 or 17.
+     *
+     * @return the feature version of the running JVM
+     */
+    public static int getFeatureVersion() {
+
+        String version = System.getProperty("java.specification.version", "1.8");
+        if (version.startsWith("1.")) {
+            version = version.substring(2);
+        }
+
+        int dot = version.indexOf('.');
+        try {
+            return (Integer.parseInt(dot > 0 ? version.substring(0, dot) : version));
+        } catch (NumberFormatException e) {
+            return (8);
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the JVM supports virtual threads.
+     *
+     * @return a virtual-thread-per-task executor, or null if virtual threads are not supported
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            return (null);
+        }
+
+        try {
+            return ((ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return (null);
+        }
+    }
+
+    /**
+     * Copies all bytes from the InputStream to the OutputStream, neither stream is closed.
+     *
+     * @param in the InputStream to read from
+     * @param out the OutputStream to write to
+     * @return the number of bytes copied
+     * @throws IOException if an I/O error occurs
+     */
+    public static long transfer(InputStream in, OutputStream out) throws IOException {
+
+        byte[] buffer = new byte[8192];
+        long count = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            count += read;
+        }
+
+        return (count);
+    }
+
+    /**
+     * Unmaps a memory-mapped buffer without waiting for it to be garbage collected, a file that is still mapped
+     * cannot be moved or deleted on Windows. The buffer must not be used once it has been unmapped.
+     *
+     * @param buffer the buffer to unmap, as returned by FileChannel.map()
+     * @return true if the buffer has been unmapped, false if the JVM does not allow it
+     */
+    public static boolean unmap(MappedByteBuffer buffer) {
+
+        try {
+
+            // sun.misc.Unsafe.invokeCleaner() on Java 9 and later, the cleaner of the buffer is not accessible there
+            if (getFeatureVersion() >= 9) {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+                return (true);
+            }
+
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner == null) {
+                return (false);
+            }
+
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+            return (true);
+
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return (false);
+        }
+    }
+
+    private static Method findVirtualThreadPerTaskExecutor() {
+
+        // Virtual threads are a preview feature before Java 21
+        if (getFeatureVersion() < 21) {
+            return (null);
+        }
+
+        try {
+            return (Executors.class.getMethod("newVirtualThreadPerTaskExecutor"));
+        } catch (NoSuchMethodException | SecurityException e) {
+            return (null);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import javax.ws.rs.client.ClientRequestContext;
 import javax.ws.rs.client.ClientRequestFilter;
 import javax.ws.rs.client.ClientResponseContext;
 import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.WriterInterceptor;
@@ -293,8 +294,15 @@ public class MaskingLoggingFilter implements ClientRequestFilter, ClientResponse
         printHeaders(sb, id, RESPONSE_PREFIX, responseContext.getHeaders());
  
         if (responseContext.hasEntity() && maxEntitySize > 0) {
-            responseContext.setEntityStream(logResponseEntity(sb, responseContext.getEntityStream(), 
-                    MessageUtils.getCharset(responseContext.getMediaType())));
+
+            // Encoded entities are decoded later by a ReaderInterceptor, logging them here would only log binary data
+            String contentEncoding = responseContext.getHeaderString(HttpHeaders.CONTENT_ENCODING);
+            if (contentEncoding != null) {
+                appendId(sb, id).append(RESPONSE_PREFIX).append("[").append(contentEncoding).append(" encoded entity]\n");
+            } else {
+                responseContext.setEntityStream(logResponseEntity(sb, responseContext.getEntityStream(),
+                        MessageUtils.getCharset(responseContext.getMediaType())));
+            }
         }
 
         log(sb);
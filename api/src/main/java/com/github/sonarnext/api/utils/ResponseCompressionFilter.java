@@ -0,0 +1,201 @@
+package com.github.sonarnext.api.utils;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Requests gzip or deflate compressed responses and decodes them while the entity is read.
+ * Decoding is streamed, the compressed entity is never buffered. The compressed and decoded byte
+ * counts of every response are added to a {@link CompressionStats} instance and passed to an
+ * optional {@link Listener}.
+ */
+@Priority(Priorities.ENTITY_CODER)
+public class ResponseCompressionFilter implements ClientRequestFilter, ReaderInterceptor {
+
+    /**
+     * The encodings sent in the Accept-Encoding header.
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    /**
+     * Property name for the request URI property
+     */
+    protected static final String REQUEST_URI_PROPERTY = ResponseCompressionFilter.class.getName() + ".uri";
+
+    /**
+     * Receives the byte counts of each decoded response.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called once the compressed entity of a response has been read.
+         *
+         * @param uri the URI of the request, may be null
+         * @param encoding the content encoding of the response
+         * @param wireBytes the number of compressed bytes received
+         * @param decodedBytes the number of bytes the entity decoded to
+         */
+        void onResponse(URI uri, String encoding, long wireBytes, long decodedBytes);
+    }
+
+    private final CompressionStats stats = new CompressionStats();
+    private volatile boolean enabled = true;
+    private volatile Listener listener;
+
+    public boolean isEnabled() {
+        return (enabled);
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public CompressionStats getStats() {
+        return (stats);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) throws IOException {
+
+        if (!enabled) {
+            return;
+        }
+
+        requestContext.setProperty(REQUEST_URI_PROPERTY, requestContext.getUri());
+        if (!requestContext.getHeaders().containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+            requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+        }
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+
+        String contentEncoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null) {
+            return (context.proceed());
+        }
+
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        boolean gzip = "gzip".equals(encoding) || "x-gzip".equals(encoding);
+        if (!gzip && !"deflate".equals(encoding)) {
+            return (context.proceed());
+        }
+
+        CountingInputStream wire = new CountingInputStream(context.getInputStream(), null);
+        InputStream decoder = (gzip ? new GZIPInputStream(wire) : new InflaterInputStream(wire));
+        Object uri = context.getProperty(REQUEST_URI_PROPERTY);
+        CountingInputStream decoded = new CountingInputStream(decoder,
+                (decodedBytes) -> record((uri instanceof URI ? (URI) uri : null), encoding, wire.count, decodedBytes));
+
+        context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+        context.setInputStream(decoded);
+        Object entity = context.proceed();
+
+        // Streams handed to the caller are recorded when they reach EOF or are closed, anything
+        // else has been fully read at this point
+        if (!(entity instanceof InputStream || entity instanceof Reader || entity instanceof Closeable)) {
+            decoded.complete();
+        }
+
+        return (entity);
+    }
+
+    private void record(URI uri, String encoding, long wireBytes, long decodedBytes) {
+
+        stats.add(wireBytes, decodedBytes);
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onResponse(uri, encoding, wireBytes, decodedBytes);
+        }
+    }
+
+    /**
+     * Counts the bytes read and reports the count once, on EOF, close or completion.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        interface Completion {
+            void complete(long count);
+        }
+
+        private final Completion completion;
+        private long count;
+        private boolean completed;
+
+        CountingInputStream(InputStream in, Completion completion) {
+            super(in);
+            this.completion = completion;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            } else {
+                complete();
+            }
+            return (b);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            } else if (read < 0) {
+                complete();
+            }
+            return (read);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return (skipped);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return (false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                complete();
+            }
+        }
+
+        void complete() {
+            if (!completed) {
+                completed = true;
+                if (completion != null) {
+                    completion.complete(count);
+                }
+            }
+        }
+    }
+}
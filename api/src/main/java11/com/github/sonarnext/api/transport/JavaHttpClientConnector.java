@@ -0,0 +1,218 @@
+package com.github.sonarnext.api.transport;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jersey Connector backed by the JDK {@link HttpClient}.
+ */
+class JavaHttpClientConnector implements Connector {
+
+    /**
+     * Headers that are set by the HttpClient itself and are rejected when set on a request.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "content-length", "date", "expect", "from", "host", "upgrade", "via", "warning"));
+
+    private static final AtomicInteger CONNECTOR_COUNT = new AtomicInteger();
+
+    private final HttpClient httpClient;
+    private final HttpClient.Version version;
+
+    // Runs the asynchronous work of the HttpClient, owned by this connector so it can be shut down on close()
+    private final ExecutorService executor;
+
+    JavaHttpClientConnector(Client client, Configuration config, HttpClient.Version version) {
+
+        this.version = version;
+        Map<String, Object> properties = config.getProperties();
+
+        String namePrefix = "sonarqube-api-http-client-" + CONNECTOR_COUNT.incrementAndGet() + "-";
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return (thread);
+        });
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                .executor(executor)
+                .sslContext(client.getSslContext());
+
+        boolean followRedirects = ClientProperties.getValue(properties, ClientProperties.FOLLOW_REDIRECTS, true);
+        builder.followRedirects(followRedirects ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+
+        int connectTimeout = ClientProperties.getValue(properties, ClientProperties.CONNECT_TIMEOUT, 0);
+        if (connectTimeout > 0) {
+            builder.connectTimeout(Duration.ofMillis(connectTimeout));
+        }
+
+        Object proxyUri = properties.get(ClientProperties.PROXY_URI);
+        if (proxyUri != null) {
+
+            URI uri = URI.create(proxyUri.toString());
+            builder.proxy(ProxySelector.of(new InetSocketAddress(uri.getHost(), getProxyPort(uri))));
+
+            String username = ClientProperties.getValue(properties, ClientProperties.PROXY_USERNAME, String.class);
+            String password = ClientProperties.getValue(properties, ClientProperties.PROXY_PASSWORD, String.class);
+            if (username != null) {
+                builder.authenticator(new Authenticator() {
+                    @Override
+                    protected PasswordAuthentication getPasswordAuthentication() {
+                        return (getRequestorType() == RequestorType.PROXY ?
+                                new PasswordAuthentication(username, (password != null ? password.toCharArray() : new char[0])) : null);
+                    }
+                });
+            }
+        }
+
+        httpClient = builder.build();
+    }
+
+    @Override
+    public ClientResponse apply(ClientRequest request) {
+
+        try {
+            HttpResponse<InputStream> response = httpClient.send(toHttpRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+            return (toClientResponse(request, response));
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+
+        HttpRequest httpRequest;
+        try {
+            httpRequest = toHttpRequest(request);
+        } catch (IOException | RuntimeException e) {
+            callback.failure(e);
+            return (CompletableFuture.failedFuture(e));
+        }
+
+        return (httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream())
+                .handle((response, thrown) -> {
+
+                    if (thrown != null) {
+                        Throwable cause = (thrown instanceof CompletionException && thrown.getCause() != null ? thrown.getCause() : thrown);
+                        callback.failure(cause instanceof IOException ? new ProcessingException(cause) : cause);
+                        return (null);
+                    }
+
+                    try {
+                        callback.response(toClientResponse(request, response));
+                    } catch (Throwable t) {
+                        callback.failure(t);
+                    }
+
+                    return (null);
+                }));
+    }
+
+    @Override
+    public String getName() {
+        return ("java.net.http " + version);
+    }
+
+    @Override
+    public void close() {
+        // HttpClient releases its connections once it is no longer referenced, only its executor needs to be stopped
+        executor.shutdown();
+    }
+
+    /**
+     * Get the port of a proxy URI, defaulting to the port of its scheme when the URI does not have one.
+     *
+     * @param uri the proxy URI
+     * @return the port of the proxy
+     */
+    private static int getProxyPort(URI uri) {
+
+        if (uri.getPort() != -1) {
+            return (uri.getPort());
+        }
+
+        return ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+    }
+
+    private HttpRequest toHttpRequest(ClientRequest request) throws IOException {
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri());
+
+        Integer readTimeout = request.resolveProperty(ClientProperties.READ_TIMEOUT, Integer.class);
+        if (readTimeout != null && readTimeout > 0) {
+            builder.timeout(Duration.ofMillis(readTimeout));
+        }
+
+        // The entity must be written before the headers are copied, writing it may add headers such as Content-Type
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+        if (request.hasEntity()) {
+            ByteArrayOutputStream entity = new ByteArrayOutputStream();
+            request.setStreamProvider(contentLength -> entity);
+            request.writeEntity();
+            body = HttpRequest.BodyPublishers.ofByteArray(entity.toByteArray());
+        }
+
+        for (Map.Entry<String, List<String>> header : request.getStringHeaders().entrySet()) {
+            if (!RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+                for (String value : header.getValue()) {
+                    builder.header(header.getKey(), value);
+                }
+            }
+        }
+
+        return (builder.method(request.getMethod(), body).build());
+    }
+
+    private ClientResponse toClientResponse(ClientRequest request, HttpResponse<InputStream> httpResponse) {
+
+        ClientResponse response = new ClientResponse(Statuses.from(httpResponse.statusCode()), request);
+        response.setResolvedRequestUri(httpResponse.uri());
+
+        httpResponse.headers().map().forEach((name, values) -> {
+            // Skip the HTTP/2 pseudo headers
+            if (!name.startsWith(":")) {
+                values.forEach(value -> response.getHeaders().add(name, value));
+            }
+        });
+
+        response.setEntityStream(httpResponse.body());
+        return (response);
+    }
+}
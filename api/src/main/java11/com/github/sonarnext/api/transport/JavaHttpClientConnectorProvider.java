@@ -0,0 +1,56 @@
+package com.github.sonarnext.api.transport;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import java.net.http.HttpClient;
+
+/**
+ * <p>A Jersey ConnectorProvider that sends requests with the JDK {@link HttpClient}. Requests are
+ * multiplexed over a single HTTP/2 connection when the server supports it, and asynchronous
+ * requests do not hold a thread while waiting for the server.</p>
+ *
+ * <pre>
+ * SonarApi sonarApi = new SonarApi(hostUrl, token, null)
+ *     .withConnectorProvider(new JavaHttpClientConnectorProvider());
+ * </pre>
+ *
+ * <p>Requires Java 11 or later. The public API of this class must stay the same as the one of its Java 8
+ * version in src/main/java.</p>
+ */
+public class JavaHttpClientConnectorProvider implements ConnectorProvider {
+
+    private final HttpClient.Version version;
+
+    /**
+     * Creates a provider that prefers HTTP/2 and falls back to HTTP/1.1.
+     */
+    public JavaHttpClientConnectorProvider() {
+        this(true);
+    }
+
+    /**
+     * Creates a provider that uses HTTP/2 or HTTP/1.1.
+     *
+     * @param http2 if true HTTP/2 is preferred, otherwise HTTP/1.1 is used
+     */
+    public JavaHttpClientConnectorProvider(boolean http2) {
+        this.version = (http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+    }
+
+    /**
+     * Returns true if the java.net.http HttpClient is available in this JVM, otherwise returns false.
+     *
+     * @return true if the java.net.http HttpClient is available in this JVM
+     */
+    public static boolean isAvailable() {
+        return (true);
+    }
+
+    @Override
+    public Connector getConnector(Client client, Configuration runtimeConfig) {
+        return (new JavaHttpClientConnector(client, runtimeConfig, version));
+    }
+}
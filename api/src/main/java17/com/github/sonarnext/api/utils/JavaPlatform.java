@@ -0,0 +1,117 @@
+package com.github.sonarnext.api.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to JVM features that are newer than the Java 8 baseline of this library.
+ *
+ * This is the Java 17 implementation, it is packaged in META-INF/versions/17 of the multi-release jar.
+ */
+public final class JavaPlatform {
+
+    // Same lookup as the Java 8 implementation, resolved once to a MethodHandle that is cheaper to invoke
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+    // sun.misc.Unsafe.invokeCleaner() bound to the Unsafe instance, null if jdk.unsupported is not available
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private JavaPlatform() {
+    }
+
+    /**
+     * Get the feature version of the running JVM, for example 8 or 17.
+     *
+     * @return the feature version of the running JVM
+     */
+    public static int getFeatureVersion() {
+        return (Runtime.version().feature());
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the JVM supports virtual threads.
+     *
+     * @return a virtual-thread-per-task executor, or null if virtual threads are not supported
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            return (null);
+        }
+
+        try {
+            return ((ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact());
+        } catch (Throwable t) {
+            return (null);
+        }
+    }
+
+    /**
+     * Copies all bytes from the InputStream to the OutputStream, neither stream is closed.
+     *
+     * @param in the InputStream to read from
+     * @param out the OutputStream to write to
+     * @return the number of bytes copied
+     * @throws IOException if an I/O error occurs
+     */
+    public static long transfer(InputStream in, OutputStream out) throws IOException {
+        return (in.transferTo(out));
+    }
+
+    /**
+     * Unmaps a memory-mapped buffer without waiting for it to be garbage collected, a file that is still mapped
+     * cannot be moved or deleted on Windows. The buffer must not be used once it has been unmapped.
+     *
+     * @param buffer the buffer to unmap, as returned by FileChannel.map()
+     * @return true if the buffer has been unmapped, false if the JVM does not allow it
+     */
+    public static boolean unmap(MappedByteBuffer buffer) {
+
+        if (INVOKE_CLEANER == null) {
+            return (false);
+        }
+
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+            return (true);
+        } catch (Throwable t) {
+            return (false);
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return (MethodHandles.publicLookup().findVirtual(unsafeClass, "invokeCleaner",
+                    MethodType.methodType(void.class, ByteBuffer.class)).bindTo(theUnsafe.get(null)));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return (null);
+        }
+    }
+
+    private static MethodHandle findVirtualThreadPerTaskExecutor() {
+
+        if (Runtime.version().feature() < 21) {
+            return (null);
+        }
+
+        try {
+            return (MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class)));
+        } catch (ReflectiveOperationException e) {
+            return (null);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.CeTask;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * <p>Compares the throughput and memory use of the bulk execution modes of {@link SonarApi} when fetching many
+ * CE tasks from a server with a fixed latency: a platform thread per call, the bounded platform thread pool and
+ * the virtual thread per task executor.</p>
+ *
+ * <p>The benchmark is skipped unless it is enabled with {@code mvn test -Dbenchmark=true}, the number of calls
+ * and the latency of the server can be set with {@code -Dbenchmark.calls} and {@code -Dbenchmark.latency}. The
+ * results are logged at the INFO level with the {@link SonarApi#getLogger()} logger.</p>
+ */
+public class BulkExecutorBenchmarkTest {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    private static final int CALLS = Integer.getInteger("benchmark.calls", 2000);
+    private static final int LATENCY = Integer.getInteger("benchmark.latency", 50);
+
+    private static final byte[] TASK = ("{\"task\":{\"id\":\"AX\",\"type\":\"REPORT\",\"componentKey\":\"project\"," +
+        "\"status\":\"SUCCESS\",\"submittedAt\":\"2024-01-01T00:00:00+0000\",\"executionTimeMs\":1200}}")
+        .getBytes(StandardCharsets.UTF_8);
+
+    private static HttpServer server;
+    private static ScheduledExecutorService responder;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+
+        assumeTrue(Boolean.getBoolean("benchmark"));
+
+        // The responses are sent from a scheduler so the latency does not hold a server thread
+        responder = Executors.newScheduledThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/api/ce/task", exchange -> responder.schedule(() -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, TASK.length);
+            exchange.getResponseBody().write(TASK);
+            exchange.close();
+            return (null);
+        }, LATENCY, TimeUnit.MILLISECONDS));
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+
+        if (server != null) {
+            server.stop(0);
+        }
+
+        if (responder != null) {
+            responder.shutdownNow();
+        }
+    }
+
+    @Test
+    public void threadPerCall() throws Exception {
+
+        try (SonarApi sonarApi = createSonarApi()) {
+            CeApi ceApi = sonarApi.getCeApi();
+            run("thread per call", () -> {
+
+                List<Thread> threads = new ArrayList<>(CALLS);
+                for (String id : getIds()) {
+                    Thread thread = new Thread(() -> {
+                        try {
+                            ceApi.getCeTask(id, null);
+                        } catch (SonarApiException e) {
+                            throw new RuntimeException(e);
+                        }
+                    });
+                    thread.start();
+                    threads.add(thread);
+                }
+
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void platformThreadPool() throws Exception {
+        try (SonarApi sonarApi = createSonarApi()) {
+            run("platform thread pool", () -> assertEquals(CALLS, sonarApi.getCeApi().getCeTasks(getIds(), null).size()));
+        }
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+
+        try (SonarApi sonarApi = createSonarApi().withVirtualThreads()) {
+            assumeTrue(sonarApi.isUsingVirtualThreads());
+            run("virtual threads", () -> assertEquals(CALLS, sonarApi.getCeApi().getCeTasks(getIds(), null).size()));
+        }
+    }
+
+    private static SonarApi createSonarApi() {
+        SonarApi sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+        sonarApi.setConnectionPoolSize(CALLS, CALLS);
+        return (sonarApi);
+    }
+
+    private static List<String> getIds() {
+
+        List<String> ids = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            ids.add("task-" + i);
+        }
+
+        return (ids);
+    }
+
+    private static void run(String mode, Run calls) throws Exception {
+
+        // A first pass warms up the client and the connection pool
+        calls.run();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        threads.resetPeakThreadCount();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        long start = System.nanoTime();
+        calls.run();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        LOGGER.info(String.format("%-22s %6d calls in %6d ms, %8.0f calls/s, peak threads %5d, heap growth %6d KB",
+            mode, CALLS, elapsed, CALLS * 1000.0 / Math.max(elapsed, 1), threads.getPeakThreadCount(),
+            (usedAfter - usedBefore) / 1024));
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.sonarnext.api;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.sonarnext.api.models.CeTask;
+import com.github.sonarnext.api.utils.JacksonJson;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Regression and throughput tests of the deserialization of the camelCase api/ce/task payloads, read from
+ * the responses recorded in src/test/resources. The throughput test measures wall-clock time, it is skipped
+ * unless it is enabled with {@code mvn test -Dbenchmark=true}.
+ */
+public class CeTaskJsonTest {
+
+    private static final int THROUGHPUT_ITERATIONS = 50000;
+
+    // A floor far below the expected rate, it only catches a per-property name translation or a reader being
+    // rebuilt for every payload
+    private static final double MIN_TASKS_PER_SECOND = 5000;
+
+    @Test
+    public void readsFailedTask() throws IOException {
+
+        CeTask.Task task = read("ce-task-failed.json").getTask();
+        assertNotNull(task);
+        assertEquals("my-org-1", task.getOrganization());
+        assertEquals("AVAn5RKqYwETbXvgas-I", task.getId());
+        assertEquals("REPORT", task.getType());
+        assertEquals("AVAn5RJmYwETbXvgas-H", task.getComponentId());
+        assertEquals("project_1", task.getComponentKey());
+        assertEquals("Project One", task.getComponentName());
+        assertEquals("TRK", task.getComponentQualifier());
+        assertEquals("123456", task.getAnalysisId());
+        assertEquals("FAILED", task.getStatus());
+        assertEquals("2015-10-02T11:32:15+0200", task.getSubmittedAt());
+        assertEquals("2015-10-02T11:32:16+0200", task.getStartedAt());
+        assertEquals("2015-10-02T11:32:22+0200", task.getExecutedAt());
+        assertEquals(Long.valueOf(5286), task.getExecutionTimeMs());
+        assertEquals("Fail to extract report AVaXuGAi_te3Ldc_YItm from database", task.getErrorMessage());
+        assertEquals(Boolean.FALSE, task.getLogs());
+        assertEquals(Boolean.TRUE, task.getHasErrorStacktrace());
+        assertTrue(task.getErrorStacktrace().startsWith("java.lang.IllegalStateException"));
+        assertTrue(task.getScannerContext().startsWith("SonarQube plugins:"));
+        assertEquals(Boolean.TRUE, task.getHasScannerContext());
+
+        assertEquals(1000L, task.getQueueWaitMs());
+        assertEquals(7000L, task.getTurnaroundMs());
+    }
+
+    @Test
+    public void readsPendingTask() throws IOException {
+
+        CeTask.Task task = read("ce-task-pending.json").getTask();
+        assertNotNull(task);
+        assertEquals("AYxZ9fHvV2gWnB1kKcQx", task.getId());
+        assertEquals("org.example:service", task.getComponentKey());
+        assertEquals("PENDING", task.getStatus());
+        assertEquals("2024-01-15T08:30:00+0000", task.getSubmittedAt());
+        assertNull(task.getStartedAt());
+        assertNull(task.getExecutionTimeMs());
+        assertEquals(Boolean.FALSE, task.getHasScannerContext());
+        assertEquals(CeTask.NO_TIME, task.getStartedAtMillis());
+        assertEquals(CeTask.NO_TIME, task.getQueueWaitMs());
+    }
+
+    @Test
+    public void getCeTaskReadsRecordedResponse() throws Exception {
+
+        byte[] payload = load("ce-task-failed.json");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/ce/task", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, payload.length);
+            exchange.getResponseBody().write(payload);
+            exchange.close();
+        });
+        server.start();
+
+        try (SonarApi sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null)) {
+            CeTask.Task task = sonarApi.getCeApi().getCeTask("AVAn5RKqYwETbXvgas-I", null).getTask();
+            assertEquals("project_1", task.getComponentKey());
+            assertEquals(Long.valueOf(5286), task.getExecutionTimeMs());
+            assertEquals("2015-10-02T11:32:15+0200", task.getSubmittedAt());
+            assertEquals(Boolean.TRUE, task.getHasScannerContext());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void throughput() throws IOException {
+
+        assumeTrue(Boolean.getBoolean("benchmark"));
+
+        byte[][] payloads = { load("ce-task-failed.json"), load("ce-task-pending.json") };
+        JacksonJson jacksonJson = new JacksonJson();
+        ObjectReader reader = jacksonJson.getReader(CeTask.class);
+
+        // Warm up the reader and the JIT before measuring
+        decode(reader, payloads, THROUGHPUT_ITERATIONS / 5);
+
+        long start = System.nanoTime();
+        int decoded = decode(reader, payloads, THROUGHPUT_ITERATIONS);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+
+        double tasksPerSecond = decoded * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        assertEquals(THROUGHPUT_ITERATIONS, decoded);
+        assertTrue("Decoded " + tasksPerSecond + " tasks/s", tasksPerSecond >= MIN_TASKS_PER_SECOND);
+    }
+
+    @Test
+    public void readerIsCached() {
+        JacksonJson jacksonJson = new JacksonJson();
+        assertTrue(jacksonJson.getReader(CeTask.class) == jacksonJson.getReader(CeTask.class));
+    }
+
+    private static int decode(ObjectReader reader, byte[][] payloads, int iterations) throws IOException {
+
+        int decoded = 0;
+        for (int i = 0; i < iterations; i++) {
+            CeTask.Task task = reader.<CeTask>readValue(payloads[i % payloads.length]).getTask();
+            assertFalse(task.getComponentKey().isEmpty());
+            decoded++;
+        }
+
+        return (decoded);
+    }
+
+    private static CeTask read(String name) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(open(name), StandardCharsets.UTF_8)) {
+            return (new JacksonJson().unmarshal(CeTask.class, reader));
+        }
+    }
+
+    private static byte[] load(String name) throws IOException {
+
+        try (InputStream in = open(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+
+            return (out.toByteArray());
+        }
+    }
+
+    private static InputStream open(String name) {
+
+        InputStream in = CeTaskJsonTest.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IllegalStateException("Missing test resource: " + name);
+        }
+
+        return (in);
+    }
+}
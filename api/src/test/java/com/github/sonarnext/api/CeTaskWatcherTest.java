@@ -0,0 +1,189 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.CeTask;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link CeTaskWatcher} against a local stub of api/ce/activity and api/ce/task.
+ */
+public class CeTaskWatcherTest {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private HttpServer server;
+    private SonarApi sonarApi;
+
+    // The finished tasks returned by api/ce/activity, by page, and the tasks returned by api/ce/task
+    private final Map<Integer, String> activityPages = new ConcurrentHashMap<>();
+    private final Map<String, String> tasks = new ConcurrentHashMap<>();
+    private volatile int activityTotal;
+
+    private final AtomicInteger activityRequests = new AtomicInteger();
+    private final AtomicInteger taskRequests = new AtomicInteger();
+    private final AtomicInteger rejectedRequests = new AtomicInteger();
+    private final Set<String> activityComponents = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/ce/activity", exchange -> {
+
+            activityRequests.incrementAndGet();
+            Map<String, String> query = getQuery(exchange);
+            activityComponents.add(query.getOrDefault("component", ""));
+            int page = Integer.parseInt(query.get("p"));
+            int pageSize = Integer.parseInt(query.get("ps"));
+            if (page * pageSize > Constants.MAX_SEARCH_RESULTS) {
+                rejectedRequests.incrementAndGet();
+                respond(exchange, 400, "{\"errors\":[{\"msg\":\"Can return only the first 10000 results\"}]}");
+                return;
+            }
+
+            respond(exchange, 200, "{\"paging\":{\"pageIndex\":" + page + ",\"pageSize\":" + pageSize + ",\"total\":" +
+                activityTotal + "},\"tasks\":[" + activityPages.getOrDefault(page, "") + "]}");
+        });
+        server.createContext("/api/ce/task", exchange -> {
+            taskRequests.incrementAndGet();
+            String task = tasks.get(getQuery(exchange).get("id"));
+            if (task == null) {
+                respond(exchange, 404, "{\"errors\":[{\"msg\":\"No activity found\"}]}");
+            } else {
+                respond(exchange, 200, "{\"task\":" + task + "}");
+            }
+        });
+        server.start();
+
+        sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+    }
+
+    @After
+    public void stopServer() {
+        sonarApi.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void resolvesTasksWithOneQueryPerComponent() throws Exception {
+
+        activityPages.put(1, String.join(",", task("T1", "proj", "SUCCESS"), task("T2", "proj", "FAILED"),
+            task("OTHER", "proj", "SUCCESS")));
+        activityTotal = 3;
+
+        try (CeTaskWatcher watcher = new CeTaskWatcher(sonarApi, POLL_INTERVAL)) {
+
+            CompletableFuture<CeTask.Task> first = watcher.watch("T1", "proj", TIMEOUT);
+            CompletableFuture<CeTask.Task> second = watcher.watch("T2", "proj", TIMEOUT);
+            assertTrue(first == watcher.watch("T1", "proj", TIMEOUT));
+
+            assertEquals("SUCCESS", first.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals("FAILED", second.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(1, activityRequests.get());
+            assertEquals(0, taskRequests.get());
+            assertEquals(0, watcher.getWatchedCount());
+        }
+
+        assertTrue(activityComponents.contains("proj"));
+    }
+
+    @Test
+    public void looksUpTasksBeyondTheActivityCap() throws Exception {
+
+        // A busy server: every page of the activity of all components is full and the watched task is not in them
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < CeApi.MAX_ACTIVITY_PAGE_SIZE; i++) {
+            page.append(i > 0 ? "," : "").append(task("BUSY" + i, "other", "SUCCESS"));
+        }
+
+        for (int i = 1; i <= Constants.MAX_SEARCH_RESULTS / CeApi.MAX_ACTIVITY_PAGE_SIZE; i++) {
+            activityPages.put(i, page.toString());
+        }
+
+        activityTotal = 50000;
+        tasks.put("T1", task("T1", "proj", "SUCCESS"));
+        tasks.put("T2", task("T2", "proj", "IN_PROGRESS"));
+
+        try (CeTaskWatcher watcher = new CeTaskWatcher(sonarApi, POLL_INTERVAL)) {
+
+            CompletableFuture<CeTask.Task> finished = watcher.watch("T1", null, TIMEOUT);
+            CompletableFuture<CeTask.Task> running = watcher.watch("T2", null, TIMEOUT);
+            assertEquals("T1", finished.get(5, TimeUnit.SECONDS).getId());
+
+            // The task still in progress stays watched until it finishes
+            Thread.sleep(POLL_INTERVAL.toMillis() * 3);
+            assertFalse(running.isDone());
+            tasks.put("T2", task("T2", "proj", "CANCELED"));
+            assertEquals("CANCELED", running.get(5, TimeUnit.SECONDS).getStatus());
+        }
+
+        assertEquals(0, rejectedRequests.get());
+        assertTrue(taskRequests.get() >= 3);
+        assertTrue(activityComponents.contains(""));
+    }
+
+    @Test
+    public void timesOut() throws Exception {
+
+        try (CeTaskWatcher watcher = new CeTaskWatcher(sonarApi, POLL_INTERVAL)) {
+            CompletableFuture<CeTask.Task> future = watcher.watch("T1", "proj", Duration.ofMillis(250));
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("Expected the watch to time out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SonarApiException);
+            }
+        }
+    }
+
+    private static String task(String id, String component, String status) {
+        return ("{\"id\":\"" + id + "\",\"type\":\"REPORT\",\"componentKey\":\"" + component + "\",\"status\":\"" + status +
+            "\",\"submittedAt\":\"2024-01-15T08:30:00+0000\"}");
+    }
+
+    private static Map<String, String> getQuery(HttpExchange exchange) throws UnsupportedEncodingException {
+
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                String[] nameValue = param.split("=", 2);
+                query.put(nameValue[0], (nameValue.length > 1 ? URLDecoder.decode(nameValue[1], "UTF-8") : ""));
+            }
+        }
+
+        return (query);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,229 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Component;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link ComponentTreeWalker} against a local stub of api/components/tree serving a tree built by each test,
+ * with the "all" and "children" strategies and the cap of {@link Constants#MAX_SEARCH_RESULTS} results.
+ */
+public class ComponentTreeWalkerTest {
+
+    private static final String PROJECT = "proj";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private SonarApi sonarApi;
+
+    // The children of each component, by key, and the qualifier of each component
+    private final Map<String, List<String>> tree = new HashMap<>();
+    private final Map<String, String> qualifiers = new HashMap<>();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rejectedRequests = new AtomicInteger();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private volatile long delayMillis;
+
+    @Before
+    public void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/components/tree", exchange -> {
+
+            requests.incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+
+            Map<String, String> query = getQuery(exchange);
+            int page = Integer.parseInt(query.get("p"));
+            int pageSize = Integer.parseInt(query.get("ps"));
+            if (page * pageSize > Constants.MAX_SEARCH_RESULTS) {
+                rejectedRequests.incrementAndGet();
+                respond(exchange, 400, "{\"errors\":[{\"msg\":\"Can return only the first 10000 results\"}]}");
+                return;
+            }
+
+            List<String> components = new ArrayList<>();
+            if ("children".equals(query.get("strategy"))) {
+                components.addAll(tree.getOrDefault(query.get("component"), Collections.emptyList()));
+            } else {
+                List<String> visited = (query.containsKey("qualifiers") ? Arrays.asList(query.get("qualifiers").split(",")) : null);
+                addDescendants(query.get("component"), visited, components);
+            }
+
+            StringBuilder body = new StringBuilder();
+            for (int i = (page - 1) * pageSize; i < Math.min(page * pageSize, components.size()); i++) {
+                String key = components.get(i);
+                body.append(body.length() > 0 ? "," : "").append("{\"key\":\"").append(key)
+                    .append("\",\"qualifier\":\"").append(qualifiers.get(key)).append("\"}");
+            }
+
+            respond(exchange, 200, "{\"paging\":{\"pageIndex\":" + page + ",\"pageSize\":" + pageSize + ",\"total\":" +
+                components.size() + "},\"components\":[" + body + "]}");
+        });
+
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+    }
+
+    @After
+    public void stopServer() {
+        sonarApi.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void walksSmallTreeInOnePass() throws Exception {
+
+        addDirectory(PROJECT, "src", 1200);
+        ComponentTreeWalker walker = sonarApi.getComponentsApi().getTreeWalker(PROJECT);
+        Set<String> keys = walk(walker);
+
+        assertEquals(1201, keys.size());
+        assertEquals(3, requests.get());
+        assertEquals(requests.get(), walker.getRequestCount());
+    }
+
+    @Test
+    public void splitsTreeLargerThanCap() throws Exception {
+
+        for (int i = 0; i < 3; i++) {
+            addDirectory(PROJECT, "dir" + i, 4000);
+        }
+
+        ComponentTreeWalker walker = sonarApi.getComponentsApi().getTreeWalker(PROJECT);
+        Set<String> keys = walk(walker);
+
+        assertEquals(3 + 3 * 4000, keys.size());
+        assertEquals(0, walker.getTruncatedCount());
+        assertEquals(0, rejectedRequests.get());
+
+        // The first page of the whole tree, the children of the project, then 8 pages per directory
+        assertEquals(2 + 3 * 8, requests.get());
+        assertEquals(requests.get(), walker.getRequestCount());
+    }
+
+    @Test
+    public void countsDirectoryWithTooManyChildren() throws Exception {
+
+        addDirectory(PROJECT, "big", Constants.MAX_SEARCH_RESULTS + 50);
+        ComponentTreeWalker walker = sonarApi.getComponentsApi().getTreeWalker(PROJECT);
+        Set<String> keys = walk(walker);
+
+        assertEquals(1 + Constants.MAX_SEARCH_RESULTS, keys.size());
+        assertEquals(1, walker.getTruncatedCount());
+        assertEquals(0, rejectedRequests.get());
+        assertEquals(requests.get(), walker.getRequestCount());
+    }
+
+    @Test
+    public void keepsFetchingWhileWorkersWait() throws Exception {
+
+        for (int i = 0; i < 4; i++) {
+            addDirectory(PROJECT, "dir" + i, 2600);
+        }
+
+        // With a single thread, the pool only fetches the pages of several subtrees at once if it adds a thread
+        // while its worker waits for a page
+        delayMillis = 20;
+        ComponentTreeWalker walker = sonarApi.getComponentsApi().getTreeWalker(PROJECT).withParallelism(1);
+        assertEquals(4 + 4 * 2600, walk(walker).size());
+        assertTrue(maxConcurrentRequests.get() > 1);
+    }
+
+    private Set<String> walk(ComponentTreeWalker walker) throws SonarApiException {
+
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        AtomicInteger visits = new AtomicInteger();
+        long visited = walker.walk(component -> {
+            visits.incrementAndGet();
+            keys.add(component.getKey());
+        });
+
+        // Each component is visited once
+        assertEquals(visits.get(), keys.size());
+        assertEquals(visited, keys.size());
+        return (keys);
+    }
+
+    private void addDirectory(String parent, String name, int files) {
+
+        String directory = parent + ":" + name;
+        add(parent, directory, Component.DIRECTORY);
+        for (int i = 0; i < files; i++) {
+            add(directory, directory + "/File" + i + ".java", Component.FILE);
+        }
+    }
+
+    private void add(String parent, String key, String qualifier) {
+        tree.computeIfAbsent(parent, k -> new ArrayList<>()).add(key);
+        qualifiers.put(key, qualifier);
+    }
+
+    private void addDescendants(String key, List<String> visited, List<String> components) {
+        for (String child : tree.getOrDefault(key, Collections.emptyList())) {
+            if (visited == null || visited.contains(qualifiers.get(child))) {
+                components.add(child);
+            }
+
+            addDescendants(child, visited, components);
+        }
+    }
+
+    private static Map<String, String> getQuery(HttpExchange exchange) throws UnsupportedEncodingException {
+
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                String[] nameValue = param.split("=", 2);
+                query.put(nameValue[0], (nameValue.length > 1 ? URLDecoder.decode(nameValue[1], "UTF-8") : ""));
+            }
+        }
+
+        return (query);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
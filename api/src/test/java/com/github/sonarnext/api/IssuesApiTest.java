@@ -0,0 +1,169 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Issue;
+import com.github.sonarnext.api.models.IssueFilter;
+import com.github.sonarnext.api.utils.ISO8601;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link IssuesApi#exportIssues(IssueFilter)} against a local stub of api/issues/search holding one issue
+ * per second. The stub treats createdBefore as inclusive, so the issue at the bound between two date slices is
+ * returned by both slices.
+ */
+public class IssuesApiTest {
+
+    private static final int ISSUES = 10500;
+    private static final long START = 1700000000L;
+
+    private HttpServer server;
+    private SonarApi sonarApi;
+    // The creation second of the first issue of the stub
+    private volatile long start = START;
+
+    @Before
+    public void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/issues/search", exchange -> {
+
+            Map<String, String> query = getQuery(exchange);
+            int page = Integer.parseInt(query.get("p"));
+            int pageSize = Integer.parseInt(query.get("ps"));
+            if (page * pageSize > Constants.MAX_SEARCH_RESULTS || query.containsKey("createdInLast")) {
+                respond(exchange, 400, "{\"errors\":[{\"msg\":\"Invalid search\"}]}");
+                return;
+            }
+
+            long first = Math.max(toSeconds(query.get("createdAfter"), start), start);
+            long last = Math.min(toSeconds(query.get("createdBefore"), start + ISSUES), start + ISSUES - 1);
+            int total = (int) Math.max(0, last - first + 1);
+
+            StringBuilder issues = new StringBuilder();
+            for (long second = first + (long) (page - 1) * pageSize; second <= last && second < first + (long) page * pageSize; second++) {
+                issues.append(issues.length() > 0 ? "," : "").append("{\"key\":\"I").append(second - start).append("\"}");
+            }
+
+            respond(exchange, 200, "{\"paging\":{\"pageIndex\":" + page + ",\"pageSize\":" + pageSize + ",\"total\":" +
+                total + "},\"issues\":[" + issues + "]}");
+        });
+        server.start();
+
+        sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+    }
+
+    @After
+    public void stopServer() {
+        sonarApi.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void countsPeriodBackInUtc() {
+
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            // Summer time starts in Paris on 2024-03-31, a day counted back in the default time zone is 23 hours long
+            TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+            long now = Instant.parse("2024-03-31T12:00:00Z").toEpochMilli();
+            assertEquals(Instant.parse("2024-03-30T12:00:00Z"), IssuesApi.getPeriodStart("1d", now).toInstant());
+            assertEquals(Instant.parse("2023-02-11T12:00:00Z"), IssuesApi.getPeriodStart("1y1m2w3d", now).toInstant());
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPeriod() {
+        IssuesApi.getPeriodStart("2h", System.currentTimeMillis());
+    }
+
+    @Test
+    public void plansCreatedInLastAsDateRange() throws Exception {
+
+        long before = System.currentTimeMillis();
+        start = before / 1000L - TimeUnit.DAYS.toSeconds(7) - 1000L;
+        IssueFilter filter = new IssueFilter().withProjects(Collections.singletonList("proj")).withCreatedInLast("1w");
+        List<PartitionedSearch<Issue>.Slice> slices = sonarApi.getIssuesApi().exportIssues(filter).plan();
+        long after = System.currentTimeMillis();
+
+        assertEquals(1, slices.size());
+        MultivaluedMap<String, String> params = slices.get(0).queryParams();
+        assertFalse(params.containsKey("createdInLast"));
+        assertEquals("proj", params.getFirst("projects"));
+
+        long createdAfter = ISO8601.toEpochMillis(params.getFirst("createdAfter"));
+        assertTrue(createdAfter >= IssuesApi.getPeriodStart("1w", before).getTime() - 1000L);
+        assertTrue(createdAfter <= IssuesApi.getPeriodStart("1w", after).getTime());
+    }
+
+    @Test
+    public void exportsAllIssuesOnce() throws Exception {
+
+        IssueFilter filter = new IssueFilter()
+            .withCreatedAfter(new Date(START * 1000L))
+            .withCreatedBefore(new Date((START + ISSUES) * 1000L));
+        PartitionedSearch<Issue> search = sonarApi.getIssuesApi().exportIssues(filter);
+
+        List<String> keys;
+        try (Stream<Issue> issues = search.stream()) {
+            keys = issues.map(Issue::getKey).collect(Collectors.toList());
+        }
+
+        assertEquals(ISSUES, keys.size());
+        assertEquals(ISSUES, new HashSet<>(keys).size());
+        assertEquals(0, search.getTruncatedSlices());
+    }
+
+    private static long toSeconds(String date, long defaultValue) {
+        return (date != null ? ISO8601.toEpochMillis(date, defaultValue * 1000L) / 1000L : defaultValue);
+    }
+
+    private static Map<String, String> getQuery(HttpExchange exchange) throws UnsupportedEncodingException {
+
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                String[] nameValue = param.split("=", 2);
+                query.put(nameValue[0], (nameValue.length > 1 ? URLDecoder.decode(nameValue[1], "UTF-8") : ""));
+            }
+        }
+
+        return (query);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.sonarnext.api;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.github.sonarnext.api.models.IssueSearchResult;
+import com.github.sonarnext.api.utils.JacksonJson;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * <p>Compares the deserialization throughput of api/issues/search pages with reflection, the Afterburner
+ * accessors and the Blackbird accessors, see {@link JacksonJson#enableBytecodeAccessors()}.</p>
+ *
+ * <p>The benchmark is skipped unless it is enabled with {@code mvn test -Dbenchmark=true}, the number of
+ * decoded pages can be set with {@code -Dbenchmark.pages}. The results are logged at the INFO level with the
+ * {@link SonarApi#getLogger()} logger.</p>
+ */
+public class JsonAccessorBenchmarkTest {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 2000);
+    private static final int ISSUES_PER_PAGE = 500;
+
+    private static byte[] page;
+
+    @BeforeClass
+    public static void createPage() {
+
+        assumeTrue(Boolean.getBoolean("benchmark"));
+
+        StringBuilder json = new StringBuilder("{\"paging\":{\"pageIndex\":1,\"pageSize\":500,\"total\":500},\"issues\":[");
+        for (int i = 0; i < ISSUES_PER_PAGE; i++) {
+            json.append(i > 0 ? "," : "")
+                .append("{\"key\":\"AYx").append(i).append("\",\"rule\":\"java:S1481\",\"severity\":\"MINOR\",")
+                .append("\"component\":\"org.example:service:src/main/java/Example").append(i).append(".java\",")
+                .append("\"project\":\"org.example:service\",\"line\":").append(i + 1).append(",")
+                .append("\"hash\":\"2b3d1f0c\",\"textRange\":{\"startLine\":").append(i + 1)
+                .append(",\"endLine\":").append(i + 1).append(",\"startOffset\":8,\"endOffset\":20},")
+                .append("\"status\":\"OPEN\",\"message\":\"Remove this unused local variable.\",\"effort\":\"5min\",")
+                .append("\"debt\":\"5min\",\"author\":\"dev@example.com\",\"tags\":[\"unused\"],")
+                .append("\"transitions\":[\"confirm\",\"resolve\"],\"actions\":[\"comment\"],\"comments\":[],")
+                .append("\"creationDate\":\"2024-01-15T08:30:00+0000\",\"updateDate\":\"2024-01-16T09:00:00+0000\",")
+                .append("\"type\":\"CODE_SMELL\",\"scope\":\"MAIN\",\"quickFixAvailable\":false}");
+        }
+
+        page = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void reflection() throws IOException {
+        run("reflection", new JacksonJson().getReader(IssueSearchResult.class));
+    }
+
+    @Test
+    public void afterburner() throws IOException {
+        run("afterburner", createReader(new AfterburnerModule()));
+    }
+
+    @Test
+    public void blackbird() throws IOException {
+        run("blackbird", createReader(new BlackbirdModule()));
+    }
+
+    @Test
+    public void enableBytecodeAccessors() throws IOException {
+
+        JacksonJson jacksonJson = new JacksonJson();
+        String module = jacksonJson.enableBytecodeAccessors();
+        assertNotNull(module);
+        run("enabled (" + module + ")", jacksonJson.getReader(IssueSearchResult.class));
+    }
+
+    private static ObjectReader createReader(Module module) {
+        ObjectMapper mapper = new JacksonJson().getObjectMapper().copy().registerModule(module);
+        return (mapper.readerFor(IssueSearchResult.class));
+    }
+
+    private static void run(String mode, ObjectReader reader) throws IOException {
+
+        // A first pass warms up the reader and the JIT
+        decode(reader, PAGES / 4);
+
+        long start = System.nanoTime();
+        int issues = decode(reader, PAGES);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+
+        assertEquals(PAGES * ISSUES_PER_PAGE, issues);
+        LOGGER.info(String.format("%-28s %6d pages in %6d ms, %10.0f issues/s", mode, PAGES,
+            TimeUnit.NANOSECONDS.toMillis(elapsed), issues * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+    }
+
+    private static int decode(ObjectReader reader, int pages) throws IOException {
+
+        int issues = 0;
+        for (int i = 0; i < pages; i++) {
+            IssueSearchResult result = reader.readValue(page);
+            issues += result.getIssues().size();
+        }
+
+        return (issues);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.transport.JavaHttpClientConnectorProvider;
+import com.github.sonarnext.api.utils.JavaPlatform;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks the packaged multi-release jar. The test only runs in the package phase of a build on Java 11 or
+ * later, where the multiRelease.jar property is set to the jar and the tests run against its classes.
+ */
+public class MultiReleaseJarTest {
+
+    private static String jar;
+
+    @BeforeClass
+    public static void requireJar() {
+        jar = System.getProperty("multiRelease.jar");
+        assumeTrue(jar != null);
+    }
+
+    @Test
+    public void jarIsValid() throws Exception {
+
+        // The jar tool is looked up through ToolProvider, which is not part of the Java 8 API the tests compile against
+        Class<?> toolProviderClass = Class.forName("java.util.spi.ToolProvider");
+        Method findFirst = toolProviderClass.getMethod("findFirst", String.class);
+        Method run = toolProviderClass.getMethod("run", PrintStream.class, PrintStream.class, String[].class);
+        Object tool = ((Optional<?>) findFirst.invoke(null, "jar")).orElseThrow(() -> new AssertionError("No jar tool"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(output, true, "UTF-8")) {
+            int status = (Integer) run.invoke(tool, out, out, new String[] { "--validate", "--file", jar });
+            assertEquals(new String(output.toByteArray(), StandardCharsets.UTF_8), 0, status);
+        }
+    }
+
+    @Test
+    public void loadsJava11Layer() {
+        assertTrue(JavaHttpClientConnectorProvider.isAvailable());
+    }
+
+    @Test
+    public void java17LayerUnmapsBuffers() throws Exception {
+
+        assumeTrue(JavaPlatform.getFeatureVersion() >= 17);
+        Path file = Files.createTempFile("sonarqube-api-", ".map");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertTrue(JavaPlatform.unmap(channel.map(FileChannel.MapMode.READ_WRITE, 0, 4096)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
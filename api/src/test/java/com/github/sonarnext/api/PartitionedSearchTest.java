@@ -0,0 +1,162 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.Issue;
+import com.github.sonarnext.api.utils.ISO8601;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PartitionedSearch} against a local stub of api/issues/search holding one issue per second.
+ * The stub treats createdBefore as inclusive, so the issue at the bound between two date slices is returned
+ * by both slices, as when an issue moves to another slice while the search is running.
+ */
+public class PartitionedSearchTest {
+
+    private static final int ISSUES = 12000;
+    private static final long START = 1700000000L;
+
+    private HttpServer server;
+    private SonarApi sonarApi;
+    private final AtomicInteger rejectedRequests = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/issues/search", exchange -> {
+
+            Map<String, String> query = getQuery(exchange);
+            int page = Integer.parseInt(query.get("p"));
+            int pageSize = Integer.parseInt(query.get("ps"));
+            if (page * pageSize > Constants.MAX_SEARCH_RESULTS) {
+                rejectedRequests.incrementAndGet();
+                respond(exchange, 400, "{\"errors\":[{\"msg\":\"Can return only the first 10000 results\"}]}");
+                return;
+            }
+
+            long after = toSeconds(query.get("createdAfter"), START);
+            long before = toSeconds(query.get("createdBefore"), START + ISSUES);
+            long first = Math.max(after, START);
+            long last = Math.min(before, START + ISSUES - 1);
+            int total = (int) Math.max(0, last - first + 1);
+
+            StringBuilder issues = new StringBuilder();
+            for (long second = first + (long) (page - 1) * pageSize; second <= last && second < first + (long) page * pageSize; second++) {
+                issues.append(issues.length() > 0 ? "," : "").append("{\"key\":\"I").append(second - START)
+                    .append("\",\"creationDate\":\"").append(ISO8601.toOffsetString(new Date(second * 1000L))).append("\"}");
+            }
+
+            respond(exchange, 200, "{\"paging\":{\"pageIndex\":" + page + ",\"pageSize\":" + pageSize + ",\"total\":" +
+                total + "},\"issues\":[" + issues + "]}");
+        });
+        server.start();
+
+        sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+    }
+
+    @After
+    public void stopServer() {
+        sonarApi.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void splitsByDateUntilEverySliceFits() throws Exception {
+
+        List<PartitionedSearch<Issue>.Slice> slices = newSearch().plan();
+        assertEquals(2, slices.size());
+        for (PartitionedSearch<Issue>.Slice slice : slices) {
+            assertTrue(slice.count() <= Constants.MAX_SEARCH_RESULTS);
+        }
+    }
+
+    @Test
+    public void returnsOverlappingResultsWithoutKey() throws Exception {
+
+        try (Stream<Issue> issues = newSearch().withKey(null).stream()) {
+            assertEquals(ISSUES + 1, issues.count());
+        }
+    }
+
+    @Test
+    public void dropsDuplicatesWhenParallel() throws Exception {
+        assertAllIssuesOnce(collectKeys(newSearch()));
+    }
+
+    @Test
+    public void dropsDuplicatesOnBulkThread() throws Exception {
+
+        PartitionedSearch<Issue> search = newSearch();
+        List<String> keys = sonarApi.getBulkExecutor().submit(() -> {
+            assertTrue(sonarApi.isBulkThread());
+            return (collectKeys(search));
+        }).get(60, TimeUnit.SECONDS);
+
+        assertAllIssuesOnce(keys);
+    }
+
+    private PartitionedSearch<Issue> newSearch() {
+        return (new PartitionedSearch<>(sonarApi.getIssuesApi(), Issue.class, "issues", null, "api/issues/search")
+            .withDateRange("createdAfter", "createdBefore", new Date(START * 1000L), new Date((START + ISSUES) * 1000L))
+            .withKey(Issue::getKey));
+    }
+
+    private static List<String> collectKeys(PartitionedSearch<Issue> search) throws SonarApiException {
+        try (Stream<Issue> issues = search.stream()) {
+            return (issues.map(Issue::getKey).collect(Collectors.toList()));
+        }
+    }
+
+    private void assertAllIssuesOnce(List<String> keys) {
+        assertEquals(ISSUES, keys.size());
+        assertEquals(ISSUES, new HashSet<>(keys).size());
+        assertEquals(0, rejectedRequests.get());
+    }
+
+    private static long toSeconds(String date, long defaultValue) {
+        return (date != null ? ISO8601.toEpochMillis(date, defaultValue * 1000L) / 1000L : defaultValue);
+    }
+
+    private static Map<String, String> getQuery(HttpExchange exchange) throws UnsupportedEncodingException {
+
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                String[] nameValue = param.split("=", 2);
+                query.put(nameValue[0], (nameValue.length > 1 ? URLDecoder.decode(nameValue[1], "UTF-8") : ""));
+            }
+        }
+
+        return (query);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
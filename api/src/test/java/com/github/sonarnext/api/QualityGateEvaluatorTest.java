@@ -0,0 +1,195 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.models.ProjectStatus;
+import com.github.sonarnext.api.models.ProjectStatusQuery;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link QualityGateEvaluator} against a local stub of api/qualitygates/project_status that delays
+ * its responses. The status of a project named "fail-..." is not found, the response for a project named
+ * "slow-..." is delayed by {@link #SLOW_DELAY_MILLIS}.
+ */
+public class QualityGateEvaluatorTest {
+
+    private static final long DELAY_MILLIS = 100;
+    private static final long SLOW_DELAY_MILLIS = 1000;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private SonarApi sonarApi;
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    @Before
+    public void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/qualitygates/project_status", exchange -> {
+
+            String projectKey = getQuery(exchange).get("projectKey");
+            requests.computeIfAbsent(projectKey, k -> new AtomicInteger()).incrementAndGet();
+            maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+                Thread.sleep(projectKey.startsWith("slow-") ? SLOW_DELAY_MILLIS : DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrentRequests.decrementAndGet();
+            }
+
+            if (projectKey.startsWith("fail-")) {
+                respond(exchange, 404, "{\"errors\":[{\"msg\":\"Project '" + projectKey + "' not found\"}]}");
+            } else {
+                respond(exchange, 200, "{\"projectStatus\":{\"status\":\"" + (projectKey.endsWith("-red") ? "ERROR" : "OK") +
+                    "\",\"conditions\":[]}}");
+            }
+        });
+
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+    }
+
+    @After
+    public void stopServer() {
+        sonarApi.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void sharesTheRequestInFlight() throws Exception {
+
+        gate = new CountDownLatch(1);
+        QualityGateEvaluator evaluator = sonarApi.getQualityGatesApi().createEvaluator(4);
+        CompletableFuture<ProjectStatus.Status> first = evaluator.evaluate(ProjectStatusQuery.forProject("a"));
+        CompletableFuture<ProjectStatus.Status> second = evaluator.evaluate(ProjectStatusQuery.forProject("a"));
+        assertEquals(1, evaluator.getInFlight());
+
+        // Cancelling one caller's future does not cancel the lookup shared with the other caller
+        first.cancel(true);
+        CompletableFuture<List<QualityGateEvaluator.Result>> all = evaluateAllAsync(evaluator, "a", "b", "a", "b-red");
+        gate.countDown();
+        List<QualityGateEvaluator.Result> results = all.get(30, TimeUnit.SECONDS);
+
+        assertTrue(second.get(10, TimeUnit.SECONDS).isPassed());
+        assertEquals(1, requests.get("a").get());
+        assertEquals(1, requests.get("b").get());
+        assertEquals(1, requests.get("b-red").get());
+        assertEquals(3, results.size());
+        assertEquals(0, evaluator.getInFlight());
+    }
+
+    @Test
+    public void returnsResultForEachFailure() throws Exception {
+
+        QualityGateEvaluator evaluator = sonarApi.getQualityGatesApi().createEvaluator(4);
+        List<QualityGateEvaluator.Result> results = evaluateAll(evaluator, "fail-1", "ok", "fail-2", "ok-red");
+
+        assertEquals(4, results.size());
+        for (QualityGateEvaluator.Result result : results) {
+
+            String projectKey = result.getQuery().getProjectKey();
+            if (projectKey.startsWith("fail-")) {
+                assertNull(result.getStatus());
+                assertNotNull(result.getException());
+                assertEquals(404, result.getException().getHttpStatus());
+            } else {
+                assertNull(result.getException());
+                assertEquals(!projectKey.endsWith("-red"), result.isPassed());
+            }
+        }
+    }
+
+    @Test
+    public void returnsResultsInCompletionOrder() throws Exception {
+
+        QualityGateEvaluator evaluator = sonarApi.getQualityGatesApi().createEvaluator(4);
+        List<String> projectKeys = evaluator.evaluateProjects(Arrays.asList("slow-1", "fast-1", "slow-2", "fast-2"))
+            .map(result -> result.getQuery().getProjectKey())
+            .collect(Collectors.toList());
+
+        assertEquals(4, projectKeys.size());
+        assertTrue(projectKeys.subList(0, 2).containsAll(Arrays.asList("fast-1", "fast-2")));
+        assertTrue(projectKeys.subList(2, 4).containsAll(Arrays.asList("slow-1", "slow-2")));
+    }
+
+    @Test
+    public void appliesTheLowerOfBothLimits() throws Exception {
+
+        QualityGateEvaluator evaluator = sonarApi.getQualityGatesApi().createEvaluator(3);
+        assertEquals(8, evaluateAll(evaluator, "p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8").size());
+        assertEquals(3, maxConcurrentRequests.get());
+
+        maxConcurrentRequests.set(0);
+        sonarApi.setMaxAsyncRequests(2);
+        assertEquals(8, evaluateAll(evaluator, "q1", "q2", "q3", "q4", "q5", "q6", "q7", "q8").size());
+        assertEquals(2, maxConcurrentRequests.get());
+    }
+
+    private static List<QualityGateEvaluator.Result> evaluateAll(QualityGateEvaluator evaluator, String... projectKeys) throws Exception {
+        return (evaluateAllAsync(evaluator, projectKeys).get(30, TimeUnit.SECONDS));
+    }
+
+    // The lookups are started before this method returns, the Stream is consumed on another thread
+    private static CompletableFuture<List<QualityGateEvaluator.Result>> evaluateAllAsync(QualityGateEvaluator evaluator, String... projectKeys) {
+        Stream<QualityGateEvaluator.Result> results = evaluator.evaluateProjects(Arrays.asList(projectKeys));
+        return (CompletableFuture.supplyAsync(() -> results.collect(Collectors.toList())));
+    }
+
+    private static Map<String, String> getQuery(HttpExchange exchange) throws UnsupportedEncodingException {
+
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                String[] nameValue = param.split("=", 2);
+                query.put(nameValue[0], (nameValue.length > 1 ? URLDecoder.decode(nameValue[1], "UTF-8") : ""));
+            }
+        }
+
+        return (query);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.sonarnext.api;
+
+import com.github.sonarnext.api.utils.JavaPlatform;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of {@link SourcesApi} against a local stub of api/sources/raw. The stub returns {@link #SOURCE} for the
+ * key "full", and for the other keys declares the Content-Length set by the test but sends only half of the source
+ * before dropping the connection.
+ */
+public class SourcesApiTest {
+
+    private static final byte[] SOURCE = source(200 * 1024);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private SonarApi sonarApi;
+    private volatile long declaredLength;
+
+    @Before
+    public void startServer() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/sources/raw", exchange -> {
+
+            boolean full = exchange.getRequestURI().getRawQuery().contains("key=full");
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            if (full) {
+                exchange.sendResponseHeaders(200, SOURCE.length);
+                exchange.getResponseBody().write(SOURCE);
+                exchange.close();
+                return;
+            }
+
+            // Failing the handler drops the connection before the declared Content-Length has been sent
+            exchange.sendResponseHeaders(200, declaredLength);
+            exchange.getResponseBody().write(SOURCE, 0, SOURCE.length / 2);
+            exchange.getResponseBody().flush();
+            throw new IOException("Truncated response");
+        });
+        server.start();
+
+        sonarApi = new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", null);
+    }
+
+    @After
+    public void stopServer() {
+        sonarApi.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void copiesToChannel() throws Exception {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(SOURCE.length, sonarApi.getSourcesApi().getRawSource("full", null, null, Channels.newChannel(out)));
+        assertArrayEquals(SOURCE, out.toByteArray());
+    }
+
+    @Test
+    public void downloadsThroughChannel() throws Exception {
+        assertDownloads(false);
+    }
+
+    @Test
+    public void downloadsMapped() throws Exception {
+        assertDownloads(true);
+    }
+
+    @Test
+    public void rejectsTruncatedBodyThroughChannel() throws Exception {
+        declaredLength = SOURCE.length;
+        assertDownloadFails(false);
+    }
+
+    @Test
+    public void rejectsTruncatedBodyMapped() throws Exception {
+        declaredLength = SOURCE.length;
+        assertDownloadFails(true);
+    }
+
+    @Test
+    public void writesThroughChannelAboveMapLimit() throws Exception {
+
+        // FileChannel.map() cannot map more than Integer.MAX_VALUE bytes
+        declaredLength = 3L * 1024 * 1024 * 1024;
+        assertDownloadFails(true);
+    }
+
+    @Test
+    public void unmapsMappedBuffer() throws Exception {
+
+        Path file = folder.newFile().toPath();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertTrue(JavaPlatform.unmap(channel.map(FileChannel.MapMode.READ_WRITE, 0, 4096)));
+        }
+
+        Files.delete(file);
+    }
+
+    private void assertDownloads(boolean memoryMapped) throws Exception {
+
+        Path target = folder.getRoot().toPath().resolve("Source.java");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(SOURCE.length, sonarApi.getSourcesApi().getRawSource("full", null, null, target, memoryMapped));
+        assertArrayEquals(SOURCE, Files.readAllBytes(target));
+        assertEquals(Arrays.asList("Source.java"), listFolder());
+    }
+
+    private void assertDownloadFails(boolean memoryMapped) throws Exception {
+
+        Path target = folder.getRoot().toPath().resolve("Source.java");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            sonarApi.getSourcesApi().getRawSource("truncated", null, null, target, memoryMapped);
+            fail("Expected the download of a truncated body to fail");
+        } catch (SonarApiException expected) {
+        }
+
+        // The target is left as it was and the temporary file is deleted
+        assertEquals("old", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList("Source.java"), listFolder());
+    }
+
+    private List<String> listFolder() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return (files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private static byte[] source(int length) {
+
+        byte[] source = new byte[length];
+        for (int i = 0; i < length; i++) {
+            source[i] = (byte) (i % 80 == 79 ? '\n' : 'a' + i % 26);
+        }
+
+        return (source);
+    }
+}
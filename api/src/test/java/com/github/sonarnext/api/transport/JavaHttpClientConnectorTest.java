@@ -0,0 +1,161 @@
+package com.github.sonarnext.api.transport;
+
+import com.github.sonarnext.api.SonarApi;
+import com.github.sonarnext.api.SonarApiException;
+import com.github.sonarnext.api.models.CeTask;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.glassfish.jersey.client.ClientProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests of the java.net.http connector against a local HTTP stub. The connector is in the Java 11 layer of the
+ * multi-release jar, the tests are skipped unless they run against the packaged jar on Java 11 or later.
+ */
+public class JavaHttpClientConnectorTest {
+
+    private static final String TASK = "{\"task\":{\"id\":\"AX\",\"type\":\"REPORT\",\"componentKey\":\"project\"," +
+        "\"status\":\"SUCCESS\",\"submittedAt\":\"2024-01-01T00:00:00+0000\"}}";
+
+    private static final String NOT_FOUND = "{\"errors\":[{\"msg\":\"No activity found for task 'missing'\"}]}";
+
+    private HttpServer server;
+    private final List<URI> requests = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void startServer() throws IOException {
+
+        assumeTrue(JavaHttpClientConnectorProvider.isAvailable());
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/ce/task", exchange -> {
+            requests.add(exchange.getRequestURI());
+            String query = exchange.getRequestURI().getQuery();
+            if ("id=missing".equals(query)) {
+                respond(exchange, 404, NOT_FOUND);
+            } else {
+                respond(exchange, 200, TASK);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void getSendsQueryParams() throws Exception {
+
+        try (SonarApi sonarApi = createSonarApi(null)) {
+            CeTask.Task task = sonarApi.getCeApi().getCeTask("a b&c", null).getTask();
+            assertEquals("project", task.getComponentKey());
+        }
+
+        assertEquals(1, requests.size());
+        assertEquals("/api/ce/task", requests.get(0).getPath());
+        assertEquals("id=a+b%26c", requests.get(0).getRawQuery());
+    }
+
+    @Test
+    public void errorStatusIsSonarApiException() throws Exception {
+
+        try (SonarApi sonarApi = createSonarApi(null)) {
+            sonarApi.getCeApi().getCeTask("missing", null);
+            fail("Expected a SonarApiException");
+        } catch (SonarApiException e) {
+            assertEquals(404, e.getHttpStatus());
+            assertEquals("No activity found for task 'missing'", e.getMessage());
+        }
+    }
+
+    @Test
+    public void sendsThroughProxy() throws Exception {
+
+        // The host does not resolve, only the proxy can answer
+        Map<String, Object> properties = Collections.singletonMap(ClientProperties.PROXY_URI,
+            "http://localhost:" + server.getAddress().getPort());
+        try (SonarApi sonarApi = new SonarApi("http://sonarqube.invalid", "token", properties)
+                .withConnectorProvider(new JavaHttpClientConnectorProvider(false))) {
+            assertEquals("project", sonarApi.getCeApi().getCeTask("AX", null).getTask().getComponentKey());
+        }
+
+        assertEquals(1, requests.size());
+        assertEquals("sonarqube.invalid", requests.get(0).getHost());
+    }
+
+    @Test
+    public void proxyPortDefaultsToSchemePort() throws Exception {
+
+        Method getProxyPort = Class.forName("com.github.sonarnext.api.transport.JavaHttpClientConnector")
+            .getDeclaredMethod("getProxyPort", URI.class);
+        getProxyPort.setAccessible(true);
+
+        assertEquals(80, getProxyPort.invoke(null, URI.create("http://proxy.example.com")));
+        assertEquals(443, getProxyPort.invoke(null, URI.create("https://proxy.example.com")));
+        assertEquals(3128, getProxyPort.invoke(null, URI.create("http://proxy.example.com:3128")));
+    }
+
+    @Test
+    public void closeShutsDownExecutor() throws Exception {
+
+        try (SonarApi sonarApi = createSonarApi(null)) {
+            CeTask task = sonarApi.getAsyncCeApi().getCeTask("AX", null).get(10, TimeUnit.SECONDS);
+            assertEquals("AX", task.getTask().getId());
+            assertTrue(hasConnectorThreads());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (hasConnectorThreads() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(hasConnectorThreads());
+    }
+
+    private SonarApi createSonarApi(Map<String, Object> properties) {
+        return (new SonarApi("http://localhost:" + server.getAddress().getPort(), "token", properties)
+            .withConnectorProvider(new JavaHttpClientConnectorProvider()));
+    }
+
+    private static boolean hasConnectorThreads() {
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("sonarqube-api-http-client-")) {
+                return (true);
+            }
+        }
+
+        return (false);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
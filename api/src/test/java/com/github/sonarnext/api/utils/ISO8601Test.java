@@ -0,0 +1,148 @@
+package com.github.sonarnext.api.utils;
+
+import com.github.sonarnext.api.SonarApi;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the single pass parser of {@link ISO8601} with the java.time parsers, for every offset format
+ * SonarQube returns, and checks that invalid dates are rejected.
+ */
+public class ISO8601Test {
+
+    private static final Logger LOGGER = SonarApi.getLogger();
+
+    // The +HHMM offset SonarQube uses, which java.time only parses with an explicit pattern
+    private static final DateTimeFormatter COMPACT_OFFSET = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss[.SSS]XX");
+
+    private static final int BENCHMARK_ITERATIONS = 2000000;
+
+    @Test
+    public void parsesUtc() throws ParseException {
+        assertParsed("2024-01-15T08:30:00Z", Instant.parse("2024-01-15T08:30:00Z"));
+        assertParsed("2024-01-15T08:30:00.123Z", Instant.parse("2024-01-15T08:30:00.123Z"));
+    }
+
+    @Test
+    public void parsesColonOffsets() throws ParseException {
+        assertParsed("2024-01-15T08:30:00+02:00", OffsetDateTime.parse("2024-01-15T08:30:00+02:00").toInstant());
+        assertParsed("2024-01-15T08:30:00.123-05:30", OffsetDateTime.parse("2024-01-15T08:30:00.123-05:30").toInstant());
+    }
+
+    @Test
+    public void parsesCompactOffsets() throws ParseException {
+        assertParsed("2015-10-02T11:32:15+0200", OffsetDateTime.parse("2015-10-02T11:32:15+0200", COMPACT_OFFSET).toInstant());
+        assertParsed("2024-01-15T08:30:00.123-0530", OffsetDateTime.parse("2024-01-15T08:30:00.123-0530", COMPACT_OFFSET).toInstant());
+        assertParsed("2024-01-15T08:30:00+0000", Instant.parse("2024-01-15T08:30:00Z"));
+    }
+
+    @Test
+    public void parsesDateOnly() throws ParseException {
+        assertParsed("2024-02-29", Instant.parse("2024-02-29T00:00:00Z"));
+        assertParsed("1969-12-31", Instant.parse("1969-12-31T00:00:00Z"));
+    }
+
+    @Test
+    public void parsesWithinBuffer() {
+        char[] buffer = "\"submittedAt\":\"2015-10-02T11:32:15+0200\"".toCharArray();
+        assertEquals(Instant.parse("2015-10-02T09:32:15Z").toEpochMilli(), ISO8601.parseEpochMillis(buffer, 15, 24));
+    }
+
+    @Test
+    public void matchesJavaTimeForRandomInstants() throws ParseException {
+
+        DateTimeFormatter[] formats = {
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ssXX"),
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSXX"),
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ssXXX"),
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSXXX"),
+        };
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+
+            // Whole minutes offsets between -12:00 and +14:00, instants between 1970 and 2100
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(26 * 60 + 1) - 12 * 60) * 60);
+            Instant instant = Instant.ofEpochMilli((long) (random.nextDouble() * 4102444800000L));
+            DateTimeFormatter format = formats[i % formats.length];
+            String text = instant.atOffset(offset).format(format);
+
+            long expected = OffsetDateTime.parse(text, format).toInstant().toEpochMilli();
+            assertEquals(text, expected, ISO8601.toEpochMillis(text));
+            assertEquals(text, expected, ISO8601.parseEpochMillis(text.toCharArray(), 0, text.length()));
+        }
+    }
+
+    @Test
+    public void rejectsInvalidDates() {
+
+        String[] invalid = {
+            "2024-02-30", "2023-02-29", "2024-04-31", "2024-13-01", "2024-00-10",
+            "2024-02-30T10:00:00+0000", "2023-02-29T10:00:00Z", "2024-01-15T24:00:00+0000",
+            "2024-01-15T08:60:00+0000", "2024-01-15T08:30:00+2500",
+        };
+
+        for (String text : invalid) {
+
+            assertEquals(text, ISO8601.NOT_PARSED, ISO8601.parseEpochMillis(text.toCharArray(), 0, text.length()));
+            assertEquals(text, -1L, ISO8601.toEpochMillis(text, -1L));
+            try {
+                ISO8601.toEpochMillis(text);
+                fail("Expected " + text + " to be rejected");
+            } catch (ParseException | DateTimeParseException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void throughput() throws ParseException {
+
+        assumeTrue(Boolean.getBoolean("benchmark"));
+
+        String[] texts = { "2015-10-02T11:32:15+0200", "2024-01-15T08:30:00.123Z", "2024-01-15T08:30:00.123-05:30" };
+        char[][] buffers = { texts[0].toCharArray(), texts[1].toCharArray(), texts[2].toCharArray() };
+
+        long checksum = 0;
+        for (int round = 0; round < 2; round++) {
+
+            // The first round warms up the JIT, the second one is measured
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                char[] buffer = buffers[i % buffers.length];
+                checksum += ISO8601.parseEpochMillis(buffer, 0, buffer.length);
+            }
+
+            long fastPath = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                checksum += ISO8601.toInstant(texts[i % texts.length]).toEpochMilli();
+            }
+
+            long formatter = System.nanoTime() - start;
+            if (round == 1) {
+                LOGGER.info(String.format("ISO8601 parsing of %d timestamps: parseEpochMillis %d ms, toInstant %d ms (checksum %d)",
+                    BENCHMARK_ITERATIONS, TimeUnit.NANOSECONDS.toMillis(fastPath), TimeUnit.NANOSECONDS.toMillis(formatter), checksum));
+            }
+        }
+    }
+
+    private static void assertParsed(String text, Instant expected) throws ParseException {
+        assertEquals(text, expected.toEpochMilli(), ISO8601.toEpochMillis(text));
+        assertEquals(text, expected.toEpochMilli(), ISO8601.parseEpochMillis(text.toCharArray(), 0, text.length()));
+        assertEquals(text, expected, ISO8601.toInstant(text));
+    }
+}